@@ -38,6 +38,11 @@ public class ProtostuffCompilerCLI extends ProtostuffCompiler {
     public static final String VERSION = "version";
     public static final String HELP = "help";
     public static final String PROTO_PATH = "proto_path";
+    public static final String PARALLELISM = "parallelism";
+    public static final String CACHE_DIR = "cache_dir";
+    public static final String INDEX_PROTO_PATH = "index_proto_path";
+    public static final String PRIMITIVE_REPEATED_FIELDS = "primitive_repeated_fields";
+    public static final String MUTABLE_MESSAGES = "mutable_messages";
     private static final Logger LOGGER = LoggerFactory.getLogger(ProtostuffCompilerCLI.class);
 
     public static void main(String[] args) {
@@ -100,6 +105,34 @@ public class ProtostuffCompilerCLI extends ProtostuffCompiler {
                 .numberOfArgs(1)
                 .desc("[st4] Specify full class name of an extensions provider for st4 compiler")
                 .build());
+        options.addOption(Option.builder("j")
+                .longOpt(PARALLELISM)
+                .argName("threads")
+                .numberOfArgs(1)
+                .desc("Specify number of threads used to parse proto files.")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt(CACHE_DIR)
+                .argName("dir")
+                .numberOfArgs(1)
+                .desc("Specify a directory for module fingerprints; compilation " +
+                        "is skipped when source files were not changed.")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt(INDEX_PROTO_PATH)
+                .desc("Index all proto files under proto paths once instead of " +
+                        "checking every proto path for each imported file.")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt(PRIMITIVE_REPEATED_FIELDS)
+                .desc("[java] Store repeated numeric, bool and enum fields in " +
+                        "primitive arrays instead of lists of boxed values.")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt(MUTABLE_MESSAGES)
+                .desc("[java] Generate messages that can be cleared and decoded " +
+                        "again, reusing their lists, maps and nested messages.")
+                .build());
         CommandLineParser parser = new DefaultParser();
         ImmutableModuleConfiguration.Builder builder = ImmutableModuleConfiguration.builder();
         builder.name("main");
@@ -139,6 +172,27 @@ public class ProtostuffCompilerCLI extends ProtostuffCompiler {
             if (cmd.hasOption(EXTENSIONS)) {
                 builder.putOptions(CompilerModule.EXTENSIONS_OPTION, cmd.getOptionValue(EXTENSIONS));
             }
+            if (cmd.hasOption(PARALLELISM)) {
+                String parallelism = cmd.getOptionValue(PARALLELISM);
+                try {
+                    builder.parallelism(Integer.parseInt(parallelism));
+                } catch (NumberFormatException e) {
+                    LOGGER.error("Invalid number of threads: {}", parallelism);
+                    return;
+                }
+            }
+            if (cmd.hasOption(CACHE_DIR)) {
+                builder.cacheDirectory(Paths.get(cmd.getOptionValue(CACHE_DIR)));
+            }
+            if (cmd.hasOption(INDEX_PROTO_PATH)) {
+                builder.indexIncludePaths(true);
+            }
+            if (cmd.hasOption(PRIMITIVE_REPEATED_FIELDS)) {
+                builder.putOptions(CompilerModule.PRIMITIVE_REPEATED_FIELDS_OPTION, true);
+            }
+            if (cmd.hasOption(MUTABLE_MESSAGES)) {
+                builder.putOptions(CompilerModule.MUTABLE_MESSAGES_OPTION, true);
+            }
             List<Path> includePaths = new ArrayList<>();
             if (cmd.hasOption(PROTO_PATH)) {
                 String[] paths = cmd.getOptionValues(PROTO_PATH);
@@ -195,6 +249,11 @@ public class ProtostuffCompilerCLI extends ProtostuffCompiler {
                 .put(OUTPUT, 4)
                 .put(TEMPLATE, 5)
                 .put(EXTENSIONS, 6)
+                .put(PARALLELISM, 7)
+                .put(CACHE_DIR, 8)
+                .put(INDEX_PROTO_PATH, 9)
+                .put(PRIMITIVE_REPEATED_FIELDS, 10)
+                .put(MUTABLE_MESSAGES, 11)
                 .put(DEBUG, 100)
                 .build();
         formatter.setOptionComparator((o1, o2) -> Integer.compare(
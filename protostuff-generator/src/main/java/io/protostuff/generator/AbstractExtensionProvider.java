@@ -21,6 +21,11 @@ public class AbstractExtensionProvider implements ExtensionProvider {
         attributeRenderers = new HashMap<>();
     }
 
+    /**
+     * Register a computed property. Property value is computed once per model
+     * object during compilation of a module and then reused, so given function
+     * should depend only on its argument and options of the compiled module.
+     */
     @SuppressWarnings("unchecked")
     public final <T> void registerProperty(Class<T> object, String property, Function<T, ?> function) {
         PropertyProvider<T> extender = (PropertyProvider<T>) extenderMap.computeIfAbsent(object,
@@ -1,13 +1,21 @@
 package io.protostuff.generator;
 
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.protostuff.compiler.model.Enum;
 import io.protostuff.compiler.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * @author Kostiantyn Shchepanovskyi
@@ -24,56 +32,105 @@ public abstract class AbstractProtoCompiler implements ProtoCompiler {
 
     @Override
     public void compile(Module module) {
-        try {
-            String moduleOutput = module.getOutput();
-            if (canProcessModule(module)) {
-                String outputFileName = getModuleOutputFileName(module);
-                try (Writer writer = getWriter(moduleOutput, outputFileName)) {
-                    compileModule(module, writer);
-                }
+        compile(module, module.getProtos());
+    }
+
+    @Override
+    public void compile(Module module, Collection<Proto> protos) {
+        compile(module, protos, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Output files are collected and logged sequentially, in the same order
+     * for every compilation; then they are generated by given executor, each
+     * file is a separate task. Compilation fails with exception of the first
+     * failed task in this order; remaining tasks are skipped.
+     */
+    @Override
+    public void compile(Module module, Collection<Proto> protos, Executor executor) {
+        List<Runnable> tasks = new ArrayList<>();
+        String moduleOutput = module.getOutput();
+        if (canProcessModule(module)) {
+            String outputFileName = getModuleOutputFileName(module);
+            addTask(tasks, moduleOutput, outputFileName, writer -> compileModule(module, writer));
+        }
+        for (Proto proto : protos) {
+            if (canProcessProto(proto)) {
+                String outputFileName = getProtoOutputFileName(proto);
+                addTask(tasks, moduleOutput, outputFileName, writer -> compileProto(proto, writer));
             }
-            for (Proto proto : module.getProtos()) {
-                if (canProcessProto(proto)) {
-                    String outputFileName = getProtoOutputFileName(proto);
-                    try (Writer writer = getWriter(moduleOutput, outputFileName)) {
-                        compileProto(proto, writer);
-                    }
-                }
-                for (Service service : proto.getServices()) {
-                    if (canProcessService(service)) {
-                        String outputFileName = getServiceOutputFileName(service);
-                        try (Writer writer = getWriter(moduleOutput, outputFileName)) {
-                            compileService(service, writer);
-                        }
-                    }
+            for (Service service : proto.getServices()) {
+                if (canProcessService(service)) {
+                    String outputFileName = getServiceOutputFileName(service);
+                    addTask(tasks, moduleOutput, outputFileName, writer -> compileService(service, writer));
                 }
-                processUserTypes(module, proto);
             }
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
+            processUserTypes(tasks, module, proto);
         }
+        execute(tasks, executor);
     }
 
-    private void processUserTypes(Module module, UserTypeContainer container) throws IOException {
+    private void processUserTypes(List<Runnable> tasks, Module module, UserTypeContainer container) {
         List<Message> messages = container.getMessages();
         List<io.protostuff.compiler.model.Enum> enums = container.getEnums();
         String basedir = module.getOutput();
         for (Message message : messages) {
             if (canProcessMessage(message)) {
                 String outputFileName = getMessageOutputFileName(message);
-                try (Writer writer = getWriter(basedir, outputFileName)) {
-                    compileMessage(message, writer);
-                }
+                addTask(tasks, basedir, outputFileName, writer -> compileMessage(message, writer));
             }
             // process nested messages and enums
-            processUserTypes(module, message);
+            processUserTypes(tasks, module, message);
         }
         for (Enum anEnum : enums) {
             if (canProcessEnum(anEnum)) {
                 String outputFileName = getEnumOutputFileName(anEnum);
-                try (Writer writer = getWriter(basedir, outputFileName)) {
-                    compileEnum(anEnum, writer);
+                addTask(tasks, basedir, outputFileName, writer -> compileEnum(anEnum, writer));
+            }
+        }
+    }
+
+    private void addTask(List<Runnable> tasks, String basedir, String outputFileName, Consumer<Writer> compiler) {
+        LOGGER.info("Generate {}", outputFileName);
+        tasks.add(() -> {
+            OutputStream outputStream = createStream(basedir, outputFileName);
+            try (Writer writer = getWriter(outputStream)) {
+                try {
+                    compiler.accept(writer);
+                } catch (RuntimeException | Error e) {
+                    if (outputStream instanceof OutputStreamFactory.Discardable) {
+                        ((OutputStreamFactory.Discardable) outputStream).discard();
+                    }
+                    throw e;
                 }
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        });
+    }
+
+    private void execute(List<Runnable> tasks, Executor executor) {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Runnable task : tasks) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                if (failed.get()) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }, executor));
+        }
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                Throwables.propagateIfPossible(e.getCause());
+                throw e;
             }
         }
     }
@@ -90,10 +147,12 @@ public abstract class AbstractProtoCompiler implements ProtoCompiler {
         return File.separatorChar;
     }
 
-    private Writer getWriter(String basedir, String outputFileName) {
-        LOGGER.info("Generate {}", outputFileName);
+    private OutputStream createStream(String basedir, String outputFileName) {
         String fullFileLocation = appendBasedir(basedir, outputFileName);
-        OutputStream outputStream = outputStreamFactory.createStream(fullFileLocation);
+        return outputStreamFactory.createStream(fullFileLocation);
+    }
+
+    private Writer getWriter(OutputStream outputStream) {
         OutputStreamWriter outputStreamWriter = new OutputStreamWriter(outputStream);
         return new BufferedWriter(outputStreamWriter);
     }
@@ -16,26 +16,25 @@ import static org.pegdown.Extensions.SUPPRESS_ALL_HTML;
 import static org.pegdown.Extensions.TABLES;
 import static org.pegdown.Extensions.TASKLISTITEMS;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.multibindings.MapBinder;
+import io.protostuff.compiler.model.Module;
+import io.protostuff.compiler.model.Proto;
 import io.protostuff.generator.html.HtmlGenerator;
 import io.protostuff.generator.html.markdown.MarkdownProcessor;
 import io.protostuff.generator.html.markdown.PegDownMarkdownProcessor;
 import io.protostuff.generator.java.JavaExtensionProvider;
 import org.pegdown.PegDownProcessor;
 
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import javax.inject.Inject;
 
 /**
@@ -47,6 +46,16 @@ public class CompilerModule extends AbstractModule {
 
     public static final String TEMPLATES_OPTION = "templates";
     public static final String EXTENSIONS_OPTION = "extensions";
+    /**
+     * Java generator option: store repeated numeric, bool and enum fields
+     * in primitive arrays instead of lists of boxed values.
+     */
+    public static final String PRIMITIVE_REPEATED_FIELDS_OPTION = "primitive_repeated_fields";
+    /**
+     * Java generator option: generate messages that can be cleared and
+     * decoded again, reusing their collections and nested messages.
+     */
+    public static final String MUTABLE_MESSAGES_OPTION = "mutable_messages";
 
     public static final String JAVA_COMPILER = "java";
     public static final String ST4_COMPILER = "st4";
@@ -81,16 +90,7 @@ public class CompilerModule extends AbstractModule {
 
     @Provides
     OutputStreamFactory outputStreamFactory() {
-        return location -> {
-            try {
-                Path path = Paths.get(location);
-                Path dir = path.getParent();
-                Files.createDirectories(dir);
-                return new FileOutputStream(location);
-            } catch (IOException e) {
-                throw new GeneratorException("Could not create file: %s", e, location);
-            }
-        };
+        return new FileOutputStreamFactory(true);
     }
 
     public static class JavaCompilerProvider implements Provider<ProtoCompiler> {
@@ -122,18 +122,31 @@ public class CompilerModule extends AbstractModule {
         public ProtoCompiler get() {
             // deffer compiler instantiation until wrapper is called with
             // configured template and extension provider class
-            return module -> {
-                try {
-                    Map<String, Object> options = module.getOptions();
-                    Collection<String> templates = checkNotNull((Collection<String>) options.get(TEMPLATES_OPTION),
-                            TEMPLATES_OPTION + " is not set");
-                    String extProviderClass = checkNotNull((String) options.get(EXTENSIONS_OPTION),
-                            EXTENSIONS_OPTION + " is not set");
-                    ExtensionProvider extensionProvider = instantiate(extProviderClass, ExtensionProvider.class);
-                    ProtoCompiler compiler = factory.create(templates, extensionProvider);
-                    compiler.compile(module);
-                } catch (Exception e) {
-                    throw new GeneratorException("Could not compile module: %s, module=%s", e, e.getMessage(), module);
+            return new ProtoCompiler() {
+                @Override
+                public void compile(Module module) {
+                    compile(module, module.getProtos());
+                }
+
+                @Override
+                public void compile(Module module, Collection<Proto> protos) {
+                    compile(module, protos, MoreExecutors.directExecutor());
+                }
+
+                @Override
+                public void compile(Module module, Collection<Proto> protos, Executor executor) {
+                    try {
+                        Map<String, Object> options = module.getOptions();
+                        Collection<String> templates = checkNotNull((Collection<String>) options.get(TEMPLATES_OPTION),
+                                TEMPLATES_OPTION + " is not set");
+                        String extProviderClass = checkNotNull((String) options.get(EXTENSIONS_OPTION),
+                                EXTENSIONS_OPTION + " is not set");
+                        ExtensionProvider extensionProvider = instantiate(extProviderClass, ExtensionProvider.class);
+                        ProtoCompiler compiler = factory.create(templates, extensionProvider);
+                        compiler.compile(module, protos, executor);
+                    } catch (Exception e) {
+                        throw new GeneratorException("Could not compile module: %s, module=%s", e, e.getMessage(), module);
+                    }
                 }
             };
         }
@@ -1,14 +1,10 @@
 package io.protostuff.generator;
 
-import org.apache.commons.io.FileUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 import javax.inject.Inject;
 
@@ -17,8 +13,6 @@ import javax.inject.Inject;
  */
 public class CompilerUtils {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(CompilerUtils.class);
-
     private final OutputStreamFactory outputStreamFactory;
 
     @Inject
@@ -26,35 +20,36 @@ public class CompilerUtils {
         this.outputStreamFactory = outputStreamFactory;
     }
 
-
+    /**
+     * Copy classpath resource to the given file. Incomplete output is
+     * discarded when copy fails.
+     *
+     * @throws GeneratorException if resource could not be copied
+     */
     public void copyResource(String name, String destinationFilename) {
-        OutputStream outputStream = null;
-        try {
-            outputStream = outputStreamFactory.createStream(destinationFilename);
-            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-            if (classLoader == null) {
-                String error = "Can not obtain classloader instance from current thread";
-                throw new IllegalStateException(error);
-            }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            String error = "Can not obtain classloader instance from current thread";
+            throw new IllegalStateException(error);
+        }
+        InputStream stream = classLoader.getResourceAsStream(name);
+        if (stream == null) {
+            String error = "Could not copy file, source file not found: " + name;
+            throw new IllegalStateException(error);
+        }
+        // file is written when output stream is closed
+        try (InputStream in = stream;
+             OutputStream out = outputStreamFactory.createStream(destinationFilename)) {
             try {
-                InputStream stream = classLoader.getResourceAsStream(name);
-                if (stream == null) {
-                    String error = "Could not copy file, source file not found: " + name;
-                    throw new IllegalStateException(error);
-                }
-                Path path = Paths.get(destinationFilename);
-                FileUtils.copyInputStreamToFile(stream, path.toFile());
-            } catch (IOException e) {
-                throw new GeneratorException("Could not copy %s", e, name);
-            }
-        } finally {
-            if (outputStream != null) {
-                try {
-                    outputStream.close();
-                } catch (IOException e) {
-                    LOGGER.error("Could not close file: " + name, e);
+                IOUtils.copy(in, out);
+            } catch (IOException | RuntimeException e) {
+                if (out instanceof OutputStreamFactory.Discardable) {
+                    ((OutputStreamFactory.Discardable) out).discard();
                 }
+                throw e;
             }
+        } catch (IOException e) {
+            throw new GeneratorException("Could not copy %s", e, name);
         }
     }
 
@@ -1,8 +1,10 @@
 package io.protostuff.generator;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import io.protostuff.compiler.model.Module;
+import io.protostuff.compiler.model.Proto;
 import org.stringtemplate.v4.AttributeRenderer;
 import org.stringtemplate.v4.Interpreter;
 import org.stringtemplate.v4.ST;
@@ -11,15 +13,30 @@ import org.stringtemplate.v4.misc.ObjectModelAdaptor;
 import org.stringtemplate.v4.misc.STNoSuchPropertyException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nullable;
 
 public class ExtensibleStCompiler implements ProtoCompiler {
 
+    /**
+     * Compilation that runs in current thread. Template groups are shared
+     * by compilers that use extension providers of the same class, so
+     * extensions registered in a group look up provider and property cache
+     * of the current compilation when templates are rendered.
+     */
+    private static final ThreadLocal<Compilation> COMPILATION = new ThreadLocal<>();
+
     private final StCompilerFactory compilerFactory;
     private final List<StCompiler> compilers;
-
+    private final Map<Class<?>, PropertyProvider<?>> propertyProviders;
+    private final Map<Class<?>, AttributeRenderer> attributeRenderers;
 
     @Inject
     protected ExtensibleStCompiler(StCompilerFactory compilerFactory,
@@ -27,25 +44,37 @@ public class ExtensibleStCompiler implements ProtoCompiler {
                                    @Assisted ExtensionProvider extensionProvider) {
         this.compilerFactory = compilerFactory;
         this.compilers = new ArrayList<>();
+        this.propertyProviders = new HashMap<>(extensionProvider.propertyProviders());
+        this.attributeRenderers = new HashMap<>(extensionProvider.attributeRenderers());
+        // groups do not depend on state of the provider instance, so they
+        // are shared by all compilers with providers of the same class
+        // that extend the same model classes
+        List<Object> groupKey = Arrays.asList(extensionProvider.getClass(),
+                new HashSet<>(propertyProviders.keySet()), new HashSet<>(attributeRenderers.keySet()));
         for (String template : templates) {
             StCompiler compiler = (StCompiler) this.compilerFactory.create(template);
-            STGroup group = compiler.getStGroup();
-            addRenderExtensions(group, extensionProvider);
-            addPropertyExtensions(group, extensionProvider);
+            compiler.addGroupConfigurator(groupKey, group -> {
+                addRenderExtensions(group);
+                addPropertyExtensions(group);
+            });
             compilers.add(compiler);
         }
     }
 
-    private void addPropertyExtensions(STGroup group, ExtensionProvider extensionProvider) {
-        Map<Class<?>, PropertyProvider<?>> extenderMap = extensionProvider.propertyProviders();
-        for (Map.Entry<Class<?>, PropertyProvider<?>> entry : extenderMap.entrySet()) {
-            Class<?> objectClass = entry.getKey();
-            PropertyProvider<Object> extender = (PropertyProvider<Object>) entry.getValue();
+    private void addPropertyExtensions(STGroup group) {
+        for (Class<?> objectClass : propertyProviders.keySet()) {
             group.registerModelAdaptor(objectClass, new ObjectModelAdaptor() {
                 @Override
-                public synchronized Object getProperty(Interpreter interp, ST self, Object o, Object property, String propertyName) throws STNoSuchPropertyException {
-                    if (extender.hasProperty(propertyName)) {
-                        return extender.getProperty(o, propertyName);
+                public Object getProperty(Interpreter interp, ST self, Object o, Object property, String propertyName) throws STNoSuchPropertyException {
+                    Compilation compilation = currentCompilation();
+                    PropertyProvider<Object> extender = (PropertyProvider<Object>) compilation.compiler
+                            .propertyProviders.get(objectClass);
+                    if (extender != null && extender.hasProperty(propertyName)) {
+                        PropertyCache propertyCache = compilation.propertyCache;
+                        if (propertyCache == null) {
+                            return extender.getProperty(o, propertyName);
+                        }
+                        return propertyCache.get(o, propertyName, () -> extender.getProperty(o, propertyName));
                     }
                     return super.getProperty(interp, self, o, property, propertyName);
                 }
@@ -53,17 +82,72 @@ public class ExtensibleStCompiler implements ProtoCompiler {
         }
     }
 
-    private void addRenderExtensions(STGroup group, ExtensionProvider extensionProvider) {
-        Map<Class<?>, AttributeRenderer> attributeRendererMap = extensionProvider.attributeRenderers();
-        for (Map.Entry<Class<?>, AttributeRenderer> entry : attributeRendererMap.entrySet()) {
-            group.registerRenderer(entry.getKey(), entry.getValue());
+    private void addRenderExtensions(STGroup group) {
+        for (Class<?> type : attributeRenderers.keySet()) {
+            group.registerRenderer(type, (o, formatString, locale) -> currentCompilation().compiler
+                    .attributeRenderers.get(type).toString(o, formatString, locale));
         }
     }
 
+    /**
+     * Returns compilation that runs in current thread; templates that are
+     * rendered outside of compilation use extensions of this compiler,
+     * property values are not cached.
+     */
+    private Compilation currentCompilation() {
+        Compilation compilation = COMPILATION.get();
+        return compilation == null ? new Compilation(this, null) : compilation;
+    }
+
     @Override
     public void compile(Module module) {
-        for (StCompiler compiler : compilers) {
-            compiler.compile(module);
+        compile(module, module.getProtos());
+    }
+
+    @Override
+    public void compile(Module module, Collection<Proto> protos) {
+        compile(module, protos, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Property values are computed once per compilation of a module: they
+     * can depend on module options, and model objects can be shared by
+     * compilations of different modules.
+     */
+    @Override
+    public void compile(Module module, Collection<Proto> protos, Executor executor) {
+        Compilation compilation = new Compilation(this, new PropertyCache());
+        Executor compilationExecutor = task -> executor.execute(() -> compilation.run(task));
+        compilation.run(() -> {
+            for (StCompiler compiler : compilers) {
+                compiler.compile(module, protos, compilationExecutor);
+            }
+        });
+    }
+
+    private static final class Compilation {
+
+        private final ExtensibleStCompiler compiler;
+        @Nullable
+        private final PropertyCache propertyCache;
+
+        Compilation(ExtensibleStCompiler compiler, @Nullable PropertyCache propertyCache) {
+            this.compiler = compiler;
+            this.propertyCache = propertyCache;
+        }
+
+        void run(Runnable action) {
+            Compilation previous = COMPILATION.get();
+            COMPILATION.set(this);
+            try {
+                action.run();
+            } finally {
+                if (previous == null) {
+                    COMPILATION.remove();
+                } else {
+                    COMPILATION.set(previous);
+                }
+            }
         }
     }
 
@@ -0,0 +1,146 @@
+package io.protostuff.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Creates output streams for files in local file system.
+ *
+ * In "write if changed" mode content of a file is buffered in memory and
+ * compared with existing file when stream is closed. Existing file is
+ * replaced (atomically, if file system supports it) only if its content is
+ * different, so modification time of unchanged files is preserved and
+ * incremental builds do not process them again. Replaced file keeps its
+ * permissions, new files are created with default permissions. If the
+ * stream is discarded, existing file is not changed.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class FileOutputStreamFactory implements OutputStreamFactory {
+
+    private final boolean writeIfChanged;
+
+    /**
+     * @param writeIfChanged if true, existing files are overwritten only
+     *                       when their content is changed
+     */
+    public FileOutputStreamFactory(boolean writeIfChanged) {
+        this.writeIfChanged = writeIfChanged;
+    }
+
+    @Override
+    public OutputStream createStream(String location) {
+        try {
+            Path path = Paths.get(location);
+            Path dir = path.getParent();
+            Files.createDirectories(dir);
+            if (writeIfChanged) {
+                return new WriteIfChangedOutputStream(path);
+            }
+            return new FileOutputStream(location);
+        } catch (IOException e) {
+            throw new GeneratorException("Could not create file: %s", e, location);
+        }
+    }
+
+    private static final class WriteIfChangedOutputStream extends ByteArrayOutputStream
+            implements OutputStreamFactory.Discardable {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final Path path;
+        private boolean closed;
+        private boolean discarded;
+
+        WriteIfChangedOutputStream(Path path) {
+            super(BUFFER_SIZE);
+            this.path = path;
+        }
+
+        @Override
+        public void discard() {
+            discarded = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (discarded || isSameContent()) {
+                return;
+            }
+            Path tempFile = createTempFile();
+            try {
+                try (OutputStream out = Files.newOutputStream(tempFile)) {
+                    writeTo(out);
+                }
+                copyPermissions(path, tempFile);
+                try {
+                    Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        /**
+         * Unlike {@link Files#createTempFile}, that makes file accessible
+         * only by owner, temporary file is created with default permissions.
+         */
+        private Path createTempFile() throws IOException {
+            String prefix = "." + path.getFileName() + ".";
+            while (true) {
+                Path tempFile = path.resolveSibling(prefix + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+                try {
+                    return Files.createFile(tempFile);
+                } catch (FileAlreadyExistsException e) {
+                    // try another name
+                }
+            }
+        }
+
+        private static void copyPermissions(Path source, Path target) throws IOException {
+            if (Files.exists(source) && Files.getFileAttributeView(source, PosixFileAttributeView.class) != null) {
+                Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+            }
+        }
+
+        private boolean isSameContent() throws IOException {
+            if (!Files.isRegularFile(path) || Files.size(path) != count) {
+                return false;
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int position = 0;
+            try (InputStream in = Files.newInputStream(path)) {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    if (position + n > count) {
+                        return false;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        if (buf[position + i] != buffer[i]) {
+                            return false;
+                        }
+                    }
+                    position += n;
+                }
+            }
+            return position == count;
+        }
+    }
+}
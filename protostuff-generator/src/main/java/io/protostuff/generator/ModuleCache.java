@@ -0,0 +1,273 @@
+package io.protostuff.generator;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.protostuff.compiler.model.ModuleConfiguration;
+import io.protostuff.compiler.parser.FileReader;
+import io.protostuff.compiler.parser.ProtoContext;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of module fingerprints.
+ *
+ * Fingerprint of a module is a list of all proto files that were loaded during
+ * compilation (including transitive imports) together with hashes of their content,
+ * and a list of generated files. It is stored under a key that is computed from
+ * module configuration, content of custom templates and of the generator itself.
+ * When all files have the same content as during previous compilation and all
+ * generated files exist, generated files are up to date and module compilation
+ * can be skipped without parsing.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class ModuleCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleCache.class);
+
+    private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+    private static final String SEPARATOR = "\t";
+    private static final String PROTO = "proto";
+    private static final String OUTPUT = "output";
+
+    /**
+     * Hashes of generator and parser code, implementation version is the same
+     * for all snapshot builds, so they are identified by content of their
+     * jar files (or class directories).
+     */
+    private static final Map<Path, String> CODE_HASHES = new ConcurrentHashMap<>();
+
+    private final Path cacheDirectory;
+
+    public ModuleCache(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Check if module was compiled before using same configuration and same
+     * source files, and all generated files still exist.
+     */
+    public boolean isUpToDate(ModuleConfiguration configuration, FileReader fileReader) {
+        if (!Files.isDirectory(Paths.get(configuration.getOutput()))) {
+            return false;
+        }
+        Path fingerprintFile = getFingerprintFile(configuration);
+        if (!Files.isRegularFile(fingerprintFile)) {
+            return false;
+        }
+        try {
+            List<String> lines = Files.readAllLines(fingerprintFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                return false;
+            }
+            for (String line : lines) {
+                String[] parts = line.split(SEPARATOR, -1);
+                if (parts.length == 3 && PROTO.equals(parts[0])) {
+                    if (!parts[2].equals(hash(fileReader, parts[1]))) {
+                        LOGGER.debug("{} is changed", parts[1]);
+                        return false;
+                    }
+                } else if (parts.length == 2 && OUTPUT.equals(parts[0])) {
+                    if (!Files.isRegularFile(Paths.get(parts[1]))) {
+                        LOGGER.debug("{} does not exist", parts[1]);
+                        return false;
+                    }
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Could not read {}", fingerprintFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Save fingerprint of a compiled module.
+     *
+     * @param contexts    contexts of compiled proto files, their imports are
+     *                    added to the fingerprint automatically
+     * @param outputFiles locations of all files generated for the module
+     */
+    public void update(ModuleConfiguration configuration, FileReader fileReader,
+                       Collection<ProtoContext> contexts, Collection<String> outputFiles) {
+        Map<String, String> hashes = new TreeMap<>();
+        for (String file : collectFiles(contexts)) {
+            String hash = hash(fileReader, file);
+            if (hash == null) {
+                // file is not available from the reader, module can not be cached
+                return;
+            }
+            hashes.put(file, hash);
+        }
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            lines.add(PROTO + SEPARATOR + entry.getKey() + SEPARATOR + entry.getValue());
+        }
+        for (String outputFile : new TreeSet<>(outputFiles)) {
+            lines.add(OUTPUT + SEPARATOR + outputFile);
+        }
+        Path fingerprintFile = getFingerprintFile(configuration);
+        try {
+            Files.createDirectories(cacheDirectory);
+            Files.write(fingerprintFile, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.warn("Could not write {}", fingerprintFile, e);
+        }
+    }
+
+    /**
+     * Returns locations of generated files that are recorded in the
+     * fingerprint of given module, or empty list if there is no fingerprint.
+     */
+    public List<String> getOutputFiles(ModuleConfiguration configuration) {
+        Path fingerprintFile = getFingerprintFile(configuration);
+        List<String> result = new ArrayList<>();
+        if (!Files.isRegularFile(fingerprintFile)) {
+            return result;
+        }
+        try {
+            for (String line : Files.readAllLines(fingerprintFile, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(SEPARATOR, -1);
+                if (parts.length == 2 && OUTPUT.equals(parts[0])) {
+                    result.add(parts[1]);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not read {}", fingerprintFile, e);
+        }
+        return result;
+    }
+
+    private Collection<String> collectFiles(Collection<ProtoContext> contexts) {
+        Set<String> files = new HashSet<>();
+        Deque<ProtoContext> queue = new ArrayDeque<>(contexts);
+        while (!queue.isEmpty()) {
+            ProtoContext context = queue.poll();
+            String file = context.getProto().getFilename();
+            if (files.add(file)) {
+                queue.addAll(context.getImports());
+                queue.addAll(context.getPublicImports());
+            }
+        }
+        return files;
+    }
+
+    private Path getFingerprintFile(ModuleConfiguration configuration) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        putString(hasher, String.valueOf(ProtostuffCompiler.class.getPackage().getImplementationVersion()));
+        putString(hasher, hashCodeSource(ProtostuffCompiler.class));
+        putString(hasher, hashCodeSource(ProtoContext.class));
+        putString(hasher, configuration.getName());
+        putString(hasher, configuration.getGenerator());
+        putString(hasher, configuration.getOutput());
+        putString(hasher, new TreeMap<>(configuration.getOptions()).toString());
+        for (Path includePath : configuration.getIncludePaths()) {
+            putString(hasher, includePath.toAbsolutePath().normalize().toString());
+        }
+        for (String protoFile : configuration.getProtoFiles()) {
+            putString(hasher, protoFile);
+        }
+        Object templates = configuration.getOptions().get(CompilerModule.TEMPLATES_OPTION);
+        if (templates instanceof Collection) {
+            for (Object template : (Collection<?>) templates) {
+                putString(hasher, hashTemplate(String.valueOf(template)));
+            }
+        }
+        Object extensions = configuration.getOptions().get(CompilerModule.EXTENSIONS_OPTION);
+        if (extensions instanceof String) {
+            try {
+                putString(hasher, hashCodeSource(Class.forName((String) extensions)));
+            } catch (ClassNotFoundException e) {
+                putString(hasher, "unknown");
+            }
+        }
+        return cacheDirectory.resolve(hasher.hash().toString());
+    }
+
+    private static String hashTemplate(String templateFileName) {
+        try {
+            return StGroupPool.hashTemplate(templateFileName).toString();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not load {}", templateFileName, e);
+            return "unknown";
+        }
+    }
+
+    /**
+     * Returns hash of the jar file or class directory that contains given class.
+     */
+    private static String hashCodeSource(Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return "unknown";
+        }
+        try {
+            Path location = Paths.get(codeSource.getLocation().toURI());
+            return CODE_HASHES.computeIfAbsent(location, ModuleCache::hashLocation);
+        } catch (URISyntaxException | RuntimeException e) {
+            LOGGER.debug("Could not hash code of {}", type, e);
+            return "unknown";
+        }
+    }
+
+    private static String hashLocation(Path location) {
+        try {
+            if (Files.isRegularFile(location)) {
+                return com.google.common.io.Files.asByteSource(location.toFile()).hash(HASH_FUNCTION).toString();
+            }
+            Hasher hasher = HASH_FUNCTION.newHasher();
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(location)) {
+                files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                hasher.putString(location.relativize(file).toString(), StandardCharsets.UTF_8);
+                hasher.putBytes(Files.readAllBytes(file));
+            }
+            return hasher.hash().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        hasher.putString(value, StandardCharsets.UTF_8);
+        hasher.putByte((byte) 0);
+    }
+
+    private String hash(FileReader fileReader, String file) {
+        CharStream stream = fileReader.read(file);
+        if (stream == null) {
+            return null;
+        }
+        String text = stream.getText(Interval.of(0, stream.size() - 1));
+        return HASH_FUNCTION.hashString(text, StandardCharsets.UTF_8).toString();
+    }
+}
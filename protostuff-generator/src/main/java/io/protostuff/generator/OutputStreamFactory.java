@@ -15,4 +15,14 @@ public interface OutputStreamFactory {
      * @return new stream instance
      */
     OutputStream createStream(String location);
+
+    /**
+     * Stream that writes its content to the file when it is closed. If
+     * generation of the file fails, compiler discards the stream before
+     * closing it, so existing file is not replaced by partial content.
+     */
+    interface Discardable {
+
+        void discard();
+    }
 }
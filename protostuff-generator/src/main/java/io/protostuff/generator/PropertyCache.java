@@ -0,0 +1,51 @@
+package io.protostuff.generator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe memo table for values of extension properties.
+ *
+ * The same property of the same model object is usually referenced many
+ * times from templates (for example, a field name is used in getters,
+ * setters, schema and toString), so its value is computed only once.
+ * Values are stored per model object, objects are compared by identity and
+ * are weakly referenced, so cached values do not outlive the model. Cache
+ * is used for compilation of one module, as property values can depend on
+ * module options.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+final class PropertyCache {
+
+    private static final Object NULL = new Object();
+
+    private final Cache<Object, ConcurrentMap<String, Object>> values = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * Returns cached value of the property, or computes and caches it.
+     * Value can be computed more than once if it is requested concurrently.
+     */
+    Object get(Object object, String propertyName, Supplier<?> valueSupplier) {
+        ConcurrentMap<String, Object> objectValues = values.asMap()
+                .computeIfAbsent(object, key -> new ConcurrentHashMap<>());
+        Object value = objectValues.get(propertyName);
+        if (value == null) {
+            value = valueSupplier.get();
+            if (value == null) {
+                value = NULL;
+            }
+            Object previous = objectValues.putIfAbsent(propertyName, value);
+            if (previous != null) {
+                value = previous;
+            }
+        }
+        return value == NULL ? null : value;
+    }
+}
@@ -1,6 +1,10 @@
 package io.protostuff.generator;
 
 import io.protostuff.compiler.model.Module;
+import io.protostuff.compiler.model.Proto;
+
+import java.util.Collection;
+import java.util.concurrent.Executor;
 
 /**
  * @author Kostiantyn Shchepanovskyi
@@ -8,4 +12,22 @@ import io.protostuff.compiler.model.Module;
 public interface ProtoCompiler {
 
     void compile(Module module);
+
+    /**
+     * Compile only given protos of the module, used for incremental compilation.
+     * Compilers that can not generate output for a subset of protos
+     * recompile whole module.
+     */
+    default void compile(Module module, Collection<Proto> protos) {
+        compile(module);
+    }
+
+    /**
+     * Compile given protos of the module, generating output files concurrently
+     * using given executor. Compilers that do not support concurrent generation
+     * ignore the executor.
+     */
+    default void compile(Module module, Collection<Proto> protos, Executor executor) {
+        compile(module, protos);
+    }
 }
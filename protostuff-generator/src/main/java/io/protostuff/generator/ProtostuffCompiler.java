@@ -1,7 +1,10 @@
 package io.protostuff.generator;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.util.Modules;
 import io.protostuff.compiler.ParserModule;
 import io.protostuff.compiler.model.ImmutableModule;
 import io.protostuff.compiler.model.ModuleConfiguration;
@@ -9,12 +12,26 @@ import io.protostuff.compiler.model.Proto;
 import io.protostuff.compiler.parser.FileReader;
 import io.protostuff.compiler.parser.FileReaderFactory;
 import io.protostuff.compiler.parser.Importer;
+import io.protostuff.compiler.parser.PrefetchingFileReader;
 import io.protostuff.compiler.parser.ProtoContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.Nullable;
 
 /**
  * @author Kostiantyn Shchepanovskyi
@@ -25,28 +42,112 @@ public class ProtostuffCompiler {
 
     protected final Injector injector;
 
+    private final RecordingOutputStreamFactory outputStreamFactory =
+            new RecordingOutputStreamFactory(new FileOutputStreamFactory(true));
+
     public ProtostuffCompiler() {
+        // generated files are recorded in module fingerprints
         injector = Guice.createInjector(
                 new ParserModule(),
-                new CompilerModule());
+                Modules.override(new CompilerModule()).with(binder ->
+                        binder.bind(OutputStreamFactory.class).toInstance(outputStreamFactory)));
     }
 
     public void compile(ModuleConfiguration configuration) {
+        compile(configuration, (FileReader) null);
+    }
+
+    /**
+     * Compile module using given source reader, for example
+     * {@link io.protostuff.compiler.parser.InMemoryFileReader}. Files are
+     * looked up in the source reader first, then in include paths.
+     */
+    public void compile(ModuleConfiguration configuration, @Nullable FileReader sourceReader) {
+        FileReader fileReader = createFileReader(configuration, sourceReader);
+        try {
+            ModuleCache cache = null;
+            if (configuration.getCacheDirectory() != null) {
+                cache = new ModuleCache(configuration.getCacheDirectory());
+                if (cache.isUpToDate(configuration, fileReader)) {
+                    LOGGER.info("Module {} is up to date", configuration.getName());
+                    return;
+                }
+            }
+            compile(configuration, fileReader, cache, null);
+        } finally {
+            close(fileReader);
+        }
+    }
+
+    /**
+     * Incremental compilation of a module that was already compiled by this instance.
+     * Given files and all files that import them (directly or transitively) are
+     * parsed again; output is generated only for affected proto files of the module.
+     *
+     * @param changedFiles names of changed proto files, relative to include paths
+     */
+    public void compile(ModuleConfiguration configuration, Collection<String> changedFiles) {
+        compile(configuration, null, changedFiles);
+    }
+
+    /**
+     * Incremental compilation of a module using given source reader,
+     * see {@link #compile(ModuleConfiguration, Collection)}.
+     */
+    public void compile(ModuleConfiguration configuration, @Nullable FileReader sourceReader,
+                        Collection<String> changedFiles) {
+        Importer importer = injector.getInstance(Importer.class);
+        Set<String> invalidatedFiles = importer.invalidate(changedFiles);
+        Set<String> affectedFiles = new HashSet<>(configuration.getProtoFiles());
+        affectedFiles.retainAll(invalidatedFiles);
+        if (affectedFiles.isEmpty()) {
+            LOGGER.info("Module {} is up to date", configuration.getName());
+            return;
+        }
+        FileReader fileReader = createFileReader(configuration, sourceReader);
+        try {
+            ModuleCache cache = null;
+            if (configuration.getCacheDirectory() != null) {
+                cache = new ModuleCache(configuration.getCacheDirectory());
+            }
+            compile(configuration, fileReader, cache, affectedFiles);
+        } finally {
+            close(fileReader);
+        }
+    }
+
+    private FileReader createFileReader(ModuleConfiguration configuration, @Nullable FileReader sourceReader) {
         FileReaderFactory fileReaderFactory = injector.getInstance(FileReaderFactory.class);
+        List<Path> includePaths = configuration.getIncludePaths();
+        boolean indexed = configuration.getIndexIncludePaths();
+        if (sourceReader == null) {
+            return fileReaderFactory.create(includePaths, indexed);
+        }
+        return fileReaderFactory.create(sourceReader, includePaths, indexed);
+    }
+
+    /**
+     * Release archives that were opened by file reader of a compilation.
+     */
+    private static void close(FileReader fileReader) {
+        if (fileReader instanceof Closeable) {
+            try {
+                ((Closeable) fileReader).close();
+            } catch (IOException e) {
+                LOGGER.warn("Could not close file reader", e);
+            }
+        }
+    }
+
+    private void compile(ModuleConfiguration configuration, FileReader fileReader,
+                         @Nullable ModuleCache cache, @Nullable Set<String> affectedFiles) {
         Importer importer = injector.getInstance(Importer.class);
         CompilerRegistry registry = injector.getInstance(CompilerRegistry.class);
         ProtoCompiler compiler = registry.findCompiler(configuration.getGenerator());
         if (compiler == null) {
             throw new GeneratorException("Unknown template: %s", configuration.getGenerator());
         }
-        FileReader fileReader = fileReaderFactory.create(configuration.getIncludePaths());
-        Map<String, Proto> importedFiles = new HashMap<>();
-        for (String path : configuration.getProtoFiles()) {
-            LOGGER.info("Parse {}", path);
-            ProtoContext context = importer.importFile(fileReader, path);
-            Proto proto = context.getProto();
-            importedFiles.put(path, proto);
-        }
+        Map<String, Proto> importedFiles = importFiles(importer, fileReader, configuration);
         ImmutableModule.Builder builder = ImmutableModule.builder();
         builder.name(configuration.getName());
         builder.output(configuration.getOutput());
@@ -58,6 +159,81 @@ public class ProtostuffCompiler {
         for (Proto proto : importedFiles.values()) {
             proto.setModule(module);
         }
-        compiler.compile(module);
+        List<Proto> protos = new ArrayList<>();
+        for (Map.Entry<String, Proto> entry : importedFiles.entrySet()) {
+            if (affectedFiles == null || affectedFiles.contains(entry.getKey())) {
+                protos.add(entry.getValue());
+            }
+        }
+        Set<String> outputFiles = outputStreamFactory.record(() ->
+                generate(compiler, module, protos, configuration.getParallelism()));
+        if (cache != null) {
+            List<ProtoContext> contexts = new ArrayList<>();
+            for (Proto proto : importedFiles.values()) {
+                contexts.add(proto.getContext());
+            }
+            if (affectedFiles != null) {
+                // files of unaffected protos were generated before
+                outputFiles.addAll(cache.getOutputFiles(configuration));
+            }
+            cache.update(configuration, fileReader, contexts, outputFiles);
+        }
+    }
+
+    private void generate(ProtoCompiler compiler, ImmutableModule module, List<Proto> protos, int parallelism) {
+        if (parallelism > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                    createThreadFactory("protostuff-generator-%d"));
+            try {
+                compiler.compile(module, protos, executor);
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            compiler.compile(module, protos);
+        }
+    }
+
+    private Map<String, Proto> importFiles(Importer importer, FileReader fileReader, ModuleConfiguration configuration) {
+        List<String> protoFiles = configuration.getProtoFiles();
+        int parallelism = configuration.getParallelism();
+        ExecutorService executor;
+        ExecutorService readerExecutor = null;
+        PrefetchingFileReader prefetchingReader = null;
+        FileReader reader = fileReader;
+        if (parallelism > 1) {
+            executor = Executors.newFixedThreadPool(parallelism, createThreadFactory("protostuff-importer-%d"));
+            // imported files are read in background while their dependents are parsed
+            readerExecutor = Executors.newFixedThreadPool(parallelism, createThreadFactory("protostuff-reader-%d"));
+            // files that importer already has are not read again
+            prefetchingReader = new PrefetchingFileReader(fileReader, readerExecutor, importer::isImported);
+            reader = prefetchingReader;
+        } else {
+            executor = MoreExecutors.newDirectExecutorService();
+        }
+        try {
+            protoFiles.forEach(path -> LOGGER.info("Parse {}", path));
+            List<ProtoContext> contexts = importer.importFiles(reader, protoFiles, executor);
+            Map<String, Proto> importedFiles = new LinkedHashMap<>();
+            for (int i = 0; i < protoFiles.size(); i++) {
+                importedFiles.put(protoFiles.get(i), contexts.get(i).getProto());
+            }
+            return importedFiles;
+        } finally {
+            executor.shutdownNow();
+            if (readerExecutor != null) {
+                readerExecutor.shutdownNow();
+            }
+            if (prefetchingReader != null) {
+                prefetchingReader.close();
+            }
+        }
+    }
+
+    private ThreadFactory createThreadFactory(String nameFormat) {
+        return new ThreadFactoryBuilder()
+                .setNameFormat(nameFormat)
+                .setDaemon(true)
+                .build();
     }
 }
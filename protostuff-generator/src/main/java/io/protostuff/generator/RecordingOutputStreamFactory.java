@@ -0,0 +1,50 @@
+package io.protostuff.generator;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Output stream factory that records locations of created files.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+final class RecordingOutputStreamFactory implements OutputStreamFactory {
+
+    private final OutputStreamFactory delegate;
+    private final List<Recording> recordings = new CopyOnWriteArrayList<>();
+
+    RecordingOutputStreamFactory(OutputStreamFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public OutputStream createStream(String location) {
+        for (Recording recording : recordings) {
+            recording.locations.add(location);
+        }
+        return delegate.createStream(location);
+    }
+
+    /**
+     * Runs given action and returns locations of all files that were
+     * created during the action (in any thread).
+     */
+    Set<String> record(Runnable action) {
+        Recording recording = new Recording();
+        recordings.add(recording);
+        try {
+            action.run();
+        } finally {
+            recordings.remove(recording);
+        }
+        return recording.locations;
+    }
+
+    private static final class Recording {
+
+        private final Set<String> locations = ConcurrentHashMap.newKeySet();
+    }
+}
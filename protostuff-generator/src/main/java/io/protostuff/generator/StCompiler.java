@@ -4,6 +4,7 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 
 import org.stringtemplate.v4.AttributeRenderer;
+import org.stringtemplate.v4.AutoIndentWriter;
 import org.stringtemplate.v4.Interpreter;
 import org.stringtemplate.v4.ST;
 import org.stringtemplate.v4.STGroup;
@@ -13,7 +14,13 @@ import org.stringtemplate.v4.misc.STNoSuchPropertyException;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 import io.protostuff.compiler.model.Enum;
 import io.protostuff.compiler.model.Message;
@@ -56,19 +63,72 @@ public class StCompiler extends AbstractProtoCompiler {
     public static final String SERVICE_COMPILER_TEMPLATE = "service_compiler_template";
     public static final String SERVICE_COMPILER_OUTPUT = "service_compiler_output";
 
-    private final STGroup stGroup;
+    private final String templateFileName;
+    private final List<Object> groupConfigurationKeys = new CopyOnWriteArrayList<>();
+    private final List<Consumer<STGroup>> groupConfigurators = new CopyOnWriteArrayList<>();
+    private volatile StGroupPool groupPool;
+    private final ThreadLocal<ElementEvaluator> elementEvaluator = new ThreadLocal<>();
 
     @Inject
     public StCompiler(OutputStreamFactory outputStreamFactory,
                       @Assisted String templateFileName) {
         super(outputStreamFactory);
+        // fail fast if template file does not exist
+        new STGroupFile(templateFileName);
+        this.templateFileName = templateFileName;
+    }
+
+    /**
+     * Register an action that is applied to every template group of this
+     * compiler, e.g. to register renderers. Should be called before compilation.
+     *
+     * Loaded groups are shared by compilers that use the same template file
+     * and equal configuration keys, see {@link StGroupPool}.
+     */
+    final void addGroupConfigurator(Object key, Consumer<STGroup> configurator) {
+        groupConfigurationKeys.add(key);
+        groupConfigurators.add(configurator);
+    }
+
+    /**
+     * Compilation thread uses one template group: it selects output files,
+     * evaluating enabled and output templates by {@link ElementEvaluator},
+     * and generates files if they are executed in the same thread.
+     */
+    @Override
+    public void compile(Module module, Collection<Proto> protos, Executor executor) {
+        StGroupPool pool = getGroupPool();
+        STGroup group = pool.borrow();
+        elementEvaluator.set(new ElementEvaluator(pool, group));
+        try {
+            super.compile(module, protos, executor);
+        } finally {
+            elementEvaluator.remove();
+            pool.release(group);
+        }
+    }
+
+    private STGroup createGroup() {
         STGroup group = new STGroupFile(templateFileName);
         group.setListener(new StErrorListener());
-        this.stGroup = group;
+        for (Consumer<STGroup> configurator : groupConfigurators) {
+            configurator.accept(group);
+        }
+        return group;
     }
 
-    final STGroup getStGroup() {
-        return stGroup;
+    private StGroupPool getGroupPool() {
+        StGroupPool result = groupPool;
+        if (result == null) {
+            synchronized (this) {
+                result = groupPool;
+                if (result == null) {
+                    result = StGroupPool.get(templateFileName, groupConfigurationKeys, this::createGroup);
+                    groupPool = result;
+                }
+            }
+        }
+        return result;
     }
 
     @Override
@@ -97,14 +157,29 @@ public class StCompiler extends AbstractProtoCompiler {
     }
 
     protected void compile(String templateName, String templateArgName, Object templateArgValue, Writer writer) {
-        ST st = stGroup.getInstanceOf(templateName);
-        if (st == null) {
-            throw new GeneratorException("Template %s is not defined", templateName);
+        ElementEvaluator evaluator = elementEvaluator.get();
+        if (evaluator != null) {
+            // file is generated in the compilation thread
+            write(evaluator.group, templateName, templateArgName, templateArgValue, writer);
+            return;
         }
+        StGroupPool pool = getGroupPool();
+        STGroup group = pool.borrow();
+        try {
+            write(group, templateName, templateArgName, templateArgValue, writer);
+        } finally {
+            pool.release(group);
+        }
+    }
+
+    private static void write(STGroup group, String templateName, String templateArgName,
+                              Object templateArgValue, Writer writer) {
+        ST st = getInstanceOf(group, templateName);
         st.add(templateArgName, templateArgValue);
-        String result = st.render();
         try {
-            writer.append(result);
+            // stream output directly to the writer, without building
+            // whole file content as a string
+            st.write(new AutoIndentWriter(writer));
         } catch (IOException e) {
             throw new GeneratorException("Can not write file: %s", e.getMessage());
         }
@@ -166,12 +241,59 @@ public class StCompiler extends AbstractProtoCompiler {
     }
 
     private String getString(String stName, String arg, Object value) {
-        ST st = stGroup.getInstanceOf(stName);
+        ElementEvaluator evaluator = elementEvaluator.get();
+        if (evaluator != null) {
+            return evaluator.render(stName, arg, value);
+        }
+        StGroupPool pool = getGroupPool();
+        STGroup group = pool.borrow();
+        try {
+            return new ElementEvaluator(pool, group).render(stName, arg, value);
+        } finally {
+            pool.release(group);
+        }
+    }
+
+    private static ST getInstanceOf(STGroup group, String templateName) {
+        ST st = group.getInstanceOf(templateName);
         if (st == null) {
-            throw new GeneratorException("Template %s is not defined", stName);
+            throw new GeneratorException("Template %s is not defined", templateName);
         }
-        st.add(arg, value);
-        return st.render();
+        return st;
     }
 
+    /**
+     * Renders "enabled" and "output" templates for elements of a module.
+     *
+     * Template instances are created once and reused for all elements,
+     * templates that do not depend on the element (e.g. "true") are not
+     * rendered at all, see {@link StGroupPool#getConstantValue}.
+     */
+    private static final class ElementEvaluator {
+
+        private final StGroupPool pool;
+        private final STGroup group;
+        private final Map<String, ST> instances = new HashMap<>();
+
+        ElementEvaluator(StGroupPool pool, STGroup group) {
+            this.pool = pool;
+            this.group = group;
+        }
+
+        String render(String templateName, String arg, Object value) {
+            String constantValue = pool.getConstantValue(group, templateName);
+            if (constantValue != null) {
+                return constantValue;
+            }
+            ST st = instances.get(templateName);
+            if (st == null) {
+                st = getInstanceOf(group, templateName);
+                instances.put(templateName, st);
+            } else {
+                st.remove(arg);
+            }
+            st.add(arg, value);
+            return st.render();
+        }
+    }
 }
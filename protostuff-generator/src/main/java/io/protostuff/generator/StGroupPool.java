@@ -0,0 +1,247 @@
+package io.protostuff.generator;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stringtemplate.v4.STGroup;
+import org.stringtemplate.v4.STGroupFile;
+import org.stringtemplate.v4.compiler.Bytecode;
+import org.stringtemplate.v4.compiler.CompiledST;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+/**
+ * Process-wide pool of loaded template groups.
+ *
+ * Loading a group parses and compiles all its templates, so groups are
+ * shared by all compilers that use the same template file and group
+ * configuration - for example, by all modules of the same build. A group
+ * is not thread-safe, so it is used by one thread at a time: compilers
+ * borrow a group for every rendering and return it afterwards.
+ *
+ * Pools are keyed by template file name and configuration keys, and are
+ * replaced when content of the template file or of any imported file
+ * changes.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+final class StGroupPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StGroupPool.class);
+
+    private static final int MAX_IDLE_GROUPS = Runtime.getRuntime().availableProcessors();
+
+    private static final ConcurrentMap<Key, StGroupPool> POOLS = new ConcurrentHashMap<>();
+
+    private final Supplier<STGroup> groupFactory;
+    private final Map<URL, HashCode> sources;
+    private final Queue<STGroup> idleGroups = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleGroupCount = new AtomicInteger();
+    private final ConcurrentMap<String, Optional<String>> constantValues = new ConcurrentHashMap<>();
+
+    private StGroupPool(Supplier<STGroup> groupFactory, STGroup group) {
+        this.groupFactory = groupFactory;
+        this.sources = hashSources(group);
+        release(group);
+    }
+
+    /**
+     * Returns pool of groups for given template file.
+     *
+     * @param configurationKeys keys of the configuration that is applied by
+     *                          {@code groupFactory}; factories with equal keys
+     *                          should create equivalent groups
+     */
+    static StGroupPool get(String templateFileName, List<?> configurationKeys,
+                           Supplier<STGroup> groupFactory) {
+        Key key = new Key(templateFileName, configurationKeys);
+        StGroupPool pool = POOLS.get(key);
+        if (pool != null && pool.isUpToDate()) {
+            return pool;
+        }
+        synchronized (POOLS) {
+            StGroupPool current = POOLS.get(key);
+            if (current != null && current != pool) {
+                // replaced by another thread
+                return current;
+            }
+            StGroupPool newPool = new StGroupPool(groupFactory, load(groupFactory.get()));
+            POOLS.put(key, newPool);
+            LOGGER.debug("Loaded {}", templateFileName);
+            return newPool;
+        }
+    }
+
+    /**
+     * Take a group for exclusive use by the caller, group should be returned
+     * by {@link #release(STGroup)} after use.
+     */
+    STGroup borrow() {
+        STGroup group = idleGroups.poll();
+        if (group == null) {
+            return load(groupFactory.get());
+        }
+        idleGroupCount.decrementAndGet();
+        return group;
+    }
+
+    void release(STGroup group) {
+        if (idleGroupCount.incrementAndGet() <= MAX_IDLE_GROUPS) {
+            idleGroups.offer(group);
+        } else {
+            idleGroupCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns output of the template if it does not contain expressions, so
+     * it is the same for all arguments; otherwise returns null.
+     * Result is cached, given group should be borrowed from this pool.
+     */
+    @Nullable
+    String getConstantValue(STGroup group, String templateName) {
+        return constantValues.computeIfAbsent(templateName, name -> {
+            CompiledST template = group.lookupTemplate(name);
+            if (template == null || !isConstant(template)) {
+                return Optional.empty();
+            }
+            return Optional.of(group.getInstanceOf(name).render());
+        }).orElse(null);
+    }
+
+    private static boolean isConstant(CompiledST template) {
+        int ip = 0;
+        while (ip < template.codeSize) {
+            short opcode = template.instrs[ip];
+            switch (opcode) {
+                case Bytecode.INSTR_LOAD_STR:
+                case Bytecode.INSTR_WRITE:
+                case Bytecode.INSTR_WRITE_STR:
+                case Bytecode.INSTR_INDENT:
+                case Bytecode.INSTR_DEDENT:
+                case Bytecode.INSTR_NEWLINE:
+                case Bytecode.INSTR_NOOP:
+                case Bytecode.INSTR_POP:
+                    break;
+                default:
+                    return false;
+            }
+            ip += 1 + Bytecode.instructions[opcode].nopnds * Bytecode.OPND_SIZE_IN_BYTES;
+        }
+        return true;
+    }
+
+    /**
+     * Returns hash of content of given template file and all files it imports.
+     */
+    static HashCode hashTemplate(String templateFileName) {
+        Map<URL, HashCode> sources = hashSources(load(new STGroupFile(templateFileName)));
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (Map.Entry<URL, HashCode> entry : sources.entrySet()) {
+            hasher.putString(entry.getKey().toString(), StandardCharsets.UTF_8);
+            hasher.putString(String.valueOf(entry.getValue()), StandardCharsets.UTF_8);
+        }
+        return hasher.hash();
+    }
+
+    private boolean isUpToDate() {
+        for (Map.Entry<URL, HashCode> entry : sources.entrySet()) {
+            if (!Objects.equals(entry.getValue(), hash(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Load all templates of given group and its imported groups, so they
+     * are not compiled during rendering.
+     */
+    private static STGroup load(STGroup group) {
+        group.load();
+        for (STGroup importedGroup : group.getImportedGroups()) {
+            load(importedGroup);
+        }
+        return group;
+    }
+
+    private static Map<URL, HashCode> hashSources(STGroup group) {
+        List<URL> urls = new ArrayList<>();
+        collectSources(group, urls);
+        Map<URL, HashCode> result = new LinkedHashMap<>();
+        for (URL url : urls) {
+            result.put(url, hash(url));
+        }
+        return result;
+    }
+
+    private static void collectSources(STGroup group, List<URL> urls) {
+        if (group instanceof STGroupFile) {
+            URL url = ((STGroupFile) group).url;
+            if (url != null && !urls.contains(url)) {
+                urls.add(url);
+            }
+        }
+        for (STGroup importedGroup : group.getImportedGroups()) {
+            collectSources(importedGroup, urls);
+        }
+    }
+
+    @Nullable
+    private static HashCode hash(URL url) {
+        try {
+            return Resources.asByteSource(url).hash(Hashing.murmur3_128());
+        } catch (IOException e) {
+            LOGGER.debug("Could not read {}", url, e);
+            return null;
+        }
+    }
+
+    private static final class Key {
+
+        private final String templateFileName;
+        private final List<?> configurationKeys;
+
+        Key(String templateFileName, List<?> configurationKeys) {
+            this.templateFileName = templateFileName;
+            this.configurationKeys = new ArrayList<>(configurationKeys);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return templateFileName.equals(that.templateFileName)
+                    && configurationKeys.equals(that.configurationKeys);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(templateFileName, configurationKeys);
+        }
+    }
+}
@@ -20,6 +20,9 @@ public class JavaExtensionProvider extends AbstractExtensionProvider {
         registerProperty(Message.class, "javaFullName", UserTypeUtil::getCanonicalName);
         registerProperty(Message.class, "hasFields", MessageUtil::hasFields);
         registerProperty(Message.class, "javaBitFieldNames", MessageUtil::bitFieldNames);
+        registerProperty(Message.class, "javaHasPackedFields", MessageUtil::hasPackedFields);
+        registerProperty(Message.class, "javaIsMutable", MessageUtil::isMutable);
+        registerProperty(Message.class, "javaFieldsByJsonName", MessageUtil::fieldsByJsonName);
 
         registerProperty(Field.class, "javaType", MessageFieldUtil::getFieldType);
         registerProperty(Field.class, "javaRepeatedType", MessageFieldUtil::getRepeatedFieldType);
@@ -71,6 +74,24 @@ public class JavaExtensionProvider extends AbstractExtensionProvider {
         registerProperty(Field.class, "javaBitFieldIndex", MessageFieldUtil::bitFieldIndex);
         registerProperty(Field.class, "javaBitFieldMask", MessageFieldUtil::bitFieldMask);
         registerProperty(Field.class, "javaOneofConstantName", MessageFieldUtil::javaOneofConstantName);
+        registerProperty(Field.class, "javaIsPacked", MessageFieldUtil::isPacked);
+        registerProperty(Field.class, "javaValueVariableName", MessageFieldUtil::valueVariableName);
+        registerProperty(Field.class, "javaValueWriteStatement", MessageFieldUtil::valueWriteStatement);
+        registerProperty(Field.class, "javaValueSizeExpression", MessageFieldUtil::valueSizeExpression);
+        registerProperty(Field.class, "javaFixedValueSize", MessageFieldUtil::fixedValueSize);
+        registerProperty(Field.class, "protobufTag", MessageFieldUtil::protobufTag);
+        registerProperty(Field.class, "protobufTagSize", MessageFieldUtil::protobufTagSize);
+        registerProperty(Field.class, "javaMapKeyField", MessageFieldUtil::getMapKeyField);
+        registerProperty(Field.class, "javaMapValueField", MessageFieldUtil::getMapValueField);
+        registerProperty(Field.class, "javaIsPrimitiveRepeated", MessageFieldUtil::isPrimitiveRepeated);
+        registerProperty(Field.class, "javaRepeatedValueType", MessageFieldUtil::getRepeatedValueType);
+        registerProperty(Field.class, "javaRepeatedValueWrapperType", MessageFieldUtil::getRepeatedValueWrapperType);
+        registerProperty(Field.class, "javaRepeatedCountFieldName", MessageFieldUtil::getRepeatedCountFieldName);
+        registerProperty(Field.class, "javaMutableStorageName", MessageFieldUtil::getMutableStorageName);
+        registerProperty(Field.class, "javaReusableInstanceName", MessageFieldUtil::getReusableInstanceName);
+        registerProperty(Field.class, "javaPrimitiveArrayGetterName", MessageFieldUtil::getPrimitiveArrayGetterName);
+        registerProperty(Field.class, "javaPrimitiveIteratorGetterName", MessageFieldUtil::getPrimitiveIteratorGetterName);
+        registerProperty(Field.class, "javaPrimitiveIteratorType", MessageFieldUtil::getPrimitiveIteratorType);
 
         registerProperty(Oneof.class, "javaName", MessageUtil::getOneofEnumClassName);
         registerProperty(Oneof.class, "javaNotSetConstantName", MessageUtil::getOneofNotSetConstantName);
@@ -2,10 +2,13 @@ package io.protostuff.generator.java;
 
 import io.protostuff.compiler.model.Enum;
 import io.protostuff.compiler.model.*;
+import io.protostuff.generator.CompilerModule;
 import io.protostuff.generator.Formatter;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import static io.protostuff.compiler.model.ScalarFieldType.*;
 import static io.protostuff.compiler.parser.MessageParseListener.MAP_ENTRY_KEY;
 import static io.protostuff.compiler.parser.MessageParseListener.MAP_ENTRY_VALUE;
@@ -24,6 +27,13 @@ public class MessageFieldUtil {
     public static final String NULL = "null";
     public static final String MAP_SUFFIX = "Map";
     public static final String PUT_PREFIX = "put";
+    public static final String OPTION_PACKED = "packed";
+    public static final String PROTO3 = "proto3";
+    public static final String PRIMITIVE_ITERATOR = "java.util.PrimitiveIterator";
+    public static final int WIRETYPE_VARINT = 0;
+    public static final int WIRETYPE_FIXED64 = 1;
+    public static final int WIRETYPE_LENGTH_DELIMITED = 2;
+    public static final int WIRETYPE_FIXED32 = 5;
 
     public static String getFieldType(Field field) {
         FieldType type = field.getType();
@@ -58,7 +68,7 @@ public class MessageFieldUtil {
 
     public static String getFieldGetterName(Field field) {
         String getterName = GETTER_PREFIX + Formatter.toPascalCase(field.getName());
-        if ("getClass".equals(getterName)) {
+        if ("getClass".equals(getterName) || "getSerializedSize".equals(getterName)) {
             return getterName + "_";
         }
         return getterName;
@@ -469,4 +479,304 @@ public class MessageFieldUtil {
         return BOOL.equals(field.getType());
     }
 
+    /**
+     * Test if repeated field is written using packed encoding: it is enabled
+     * by {@code [packed=true]} option, and is used by default for proto3.
+     * Only numeric, bool and enum fields can be packed.
+     */
+    public static boolean isPacked(Field field) {
+        if (!field.isRepeated() || !isPackableType(field)) {
+            return false;
+        }
+        DynamicMessage.Value packed = field.getOptions().get(OPTION_PACKED);
+        if (packed != null && packed.isBooleanType()) {
+            return packed.getBoolean();
+        }
+        return isProto3(field);
+    }
+
+    private static boolean isPackableType(Field field) {
+        FieldType type = field.getType();
+        return type instanceof Enum || isNumericType(field) || isBooleanType(field);
+    }
+
+    private static boolean isProto3(Field field) {
+        FieldContainer parent = field.getParent();
+        if (parent instanceof Message) {
+            Proto proto = ((Message) parent).getProto();
+            return proto != null && PROTO3.equals(proto.getSyntax().getValue());
+        }
+        return false;
+    }
+
+    /**
+     * Name of the local variable that holds one value of the field in
+     * generated serialization code: {@code __key} for map entry keys,
+     * {@code __value} otherwise. Java field names never start with
+     * underscores, so locals do not clash with fields or method parameters.
+     */
+    public static String valueVariableName(Field field) {
+        FieldContainer parent = field.getParent();
+        if (parent instanceof Message && ((Message) parent).isMapEntry()
+                && MAP_ENTRY_KEY.equals(field.getName())) {
+            return "__key";
+        }
+        return "__value";
+    }
+
+    /**
+     * Java statement that writes one value of the field in protobuf binary
+     * format, without tag, to the {@code __buffer} byte array at
+     * {@code __position}, and advances the position.
+     * Value is stored in the local variable {@link #valueVariableName(Field)}.
+     */
+    public static String valueWriteStatement(Field field) {
+        String value = valueVariableName(field);
+        FieldType type = field.getType();
+        if (type instanceof Enum) {
+            return writeVarint(value);
+        }
+        if (type instanceof Message) {
+            return "__position = " + value + ".writeTo(__buffer, "
+                    + "__writeVarint(__buffer, __position, " + value + ".getSerializedSize()));";
+        }
+        ScalarFieldType fieldType = (ScalarFieldType) type;
+        switch (fieldType) {
+            case INT32:
+            case INT64:
+            case UINT64:
+                return writeVarint(value);
+            case UINT32:
+                return writeVarint(value + " & 0xFFFFFFFFL");
+            case SINT32:
+                return writeVarint("((" + value + " << 1) ^ (" + value + " >> 31)) & 0xFFFFFFFFL");
+            case SINT64:
+                return writeVarint("(" + value + " << 1) ^ (" + value + " >> 63)");
+            case BOOL:
+                return writeVarint(value + " ? 1 : 0");
+            case FIXED32:
+            case SFIXED32:
+                return write("__writeFixed32", value);
+            case FLOAT:
+                return write("__writeFixed32", "Float.floatToRawIntBits(" + value + ")");
+            case FIXED64:
+            case SFIXED64:
+                return write("__writeFixed64", value);
+            case DOUBLE:
+                return write("__writeFixed64", "Double.doubleToRawLongBits(" + value + ")");
+            case STRING:
+                return write("__writeString", value);
+            case BYTES:
+                return write("__writeBytes", value);
+            default:
+                throw new IllegalArgumentException(String.valueOf(type));
+        }
+    }
+
+    private static String writeVarint(String value) {
+        return write("__writeVarint", value);
+    }
+
+    private static String write(String method, String value) {
+        return "__position = " + method + "(__buffer, __position, " + value + ");";
+    }
+
+    /**
+     * Java expression that computes size of one value of the field in
+     * protobuf binary format, without tag. Value is stored in the local
+     * variable that has the same name as field.
+     */
+    public static String valueSizeExpression(Field field) {
+        String value = valueVariableName(field);
+        FieldType type = field.getType();
+        if (type instanceof Enum) {
+            return "__varintSize(" + value + ")";
+        }
+        if (type instanceof Message) {
+            return "__lengthDelimitedSize(" + value + ".getSerializedSize())";
+        }
+        Integer fixedSize = fixedValueSize(field);
+        if (fixedSize != null) {
+            return String.valueOf(fixedSize);
+        }
+        ScalarFieldType fieldType = (ScalarFieldType) type;
+        switch (fieldType) {
+            case INT32:
+            case INT64:
+            case UINT64:
+                return "__varintSize(" + value + ")";
+            case UINT32:
+                return "__varintSize(" + value + " & 0xFFFFFFFFL)";
+            case SINT32:
+                return "__varintSize(((" + value + " << 1) ^ (" + value + " >> 31)) & 0xFFFFFFFFL)";
+            case SINT64:
+                return "__varintSize((" + value + " << 1) ^ (" + value + " >> 63))";
+            case STRING:
+                return "__lengthDelimitedSize(__utf8Length(" + value + "))";
+            case BYTES:
+                return "__lengthDelimitedSize(" + value + ".size())";
+            default:
+                throw new IllegalArgumentException(String.valueOf(type));
+        }
+    }
+
+    /**
+     * Size of one value of the field in protobuf binary format, without tag,
+     * if it does not depend on the value; otherwise returns null.
+     */
+    @Nullable
+    public static Integer fixedValueSize(Field field) {
+        FieldType type = field.getType();
+        if (!(type instanceof ScalarFieldType)) {
+            return null;
+        }
+        switch ((ScalarFieldType) type) {
+            case BOOL:
+                return 1;
+            case FIXED32:
+            case SFIXED32:
+            case FLOAT:
+                return 4;
+            case FIXED64:
+            case SFIXED64:
+            case DOUBLE:
+                return 8;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Tag of the field in protobuf binary format: field number and wire type.
+     */
+    public static int protobufTag(Field field) {
+        return field.getTag() << 3 | wireType(field);
+    }
+
+    public static int protobufTagSize(Field field) {
+        int tag = protobufTag(field);
+        int size = 1;
+        while ((tag & ~0x7F) != 0) {
+            tag >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int wireType(Field field) {
+        FieldType type = field.getType();
+        if (isPacked(field) || !(type instanceof ScalarFieldType || type instanceof Enum)) {
+            return WIRETYPE_LENGTH_DELIMITED;
+        }
+        if (STRING.equals(type) || BYTES.equals(type)) {
+            return WIRETYPE_LENGTH_DELIMITED;
+        }
+        Integer fixedSize = fixedValueSize(field);
+        if (fixedSize != null && fixedSize == 4) {
+            return WIRETYPE_FIXED32;
+        }
+        if (fixedSize != null && fixedSize == 8) {
+            return WIRETYPE_FIXED64;
+        }
+        return WIRETYPE_VARINT;
+    }
+
+    public static Field getMapKeyField(Field field) {
+        return getMapEntryField(field, MAP_ENTRY_KEY);
+    }
+
+    public static Field getMapValueField(Field field) {
+        return getMapEntryField(field, MAP_ENTRY_VALUE);
+    }
+
+    private static Field getMapEntryField(Field field, String name) {
+        FieldType type = field.getType();
+        if (!field.isMap() || !(type instanceof Message)) {
+            throw new IllegalArgumentException(field.toString());
+        }
+        return ((Message) type).getField(name);
+    }
+
+    /**
+     * Test if repeated field is stored in a primitive array: it is enabled by
+     * {@link CompilerModule#PRIMITIVE_REPEATED_FIELDS_OPTION} module option.
+     * Only numeric, bool and enum fields can be stored in primitive arrays.
+     */
+    public static boolean isPrimitiveRepeated(Field field) {
+        if (!field.isRepeated() || field.isMap() || !isPackableType(field)) {
+            return false;
+        }
+        FieldContainer parent = field.getParent();
+        return parent instanceof Message
+                && ProtoUtil.isModuleOptionEnabled(((Message) parent).getProto(),
+                CompilerModule.PRIMITIVE_REPEATED_FIELDS_OPTION);
+    }
+
+    /**
+     * Java type of one value of repeated field, as it is stored in the
+     * message: enum values are stored as numbers.
+     */
+    public static String getRepeatedValueType(Field field) {
+        if (field.getType() instanceof Enum) {
+            return "int";
+        }
+        return getFieldType(field);
+    }
+
+    public static String getRepeatedValueWrapperType(Field field) {
+        if (field.getType() instanceof Enum) {
+            return "Integer";
+        }
+        return getWrapperFieldType(field);
+    }
+
+    public static String getRepeatedCountFieldName(Field field) {
+        return getFieldName(field) + "__count";
+    }
+
+    /**
+     * Name of the field that holds modifiable list or map of mutable message,
+     * see {@link MessageUtil#isMutable(Message)}.
+     */
+    public static String getMutableStorageName(Field field) {
+        return getFieldName(field) + (field.isMap() ? "__map" : "__list");
+    }
+
+    /**
+     * Name of the field that holds cleared nested message instances that
+     * are reused by the next merge.
+     */
+    public static String getReusableInstanceName(Field field) {
+        return getFieldName(field) + "__reuse";
+    }
+
+    public static String getPrimitiveArrayGetterName(Field field) {
+        return GETTER_PREFIX + Formatter.toPascalCase(field.getName()) + primitiveAccessorSuffix(field) + "Array";
+    }
+
+    public static String getPrimitiveIteratorGetterName(Field field) {
+        return GETTER_PREFIX + Formatter.toPascalCase(field.getName()) + primitiveAccessorSuffix(field) + "Iterator";
+    }
+
+    private static String primitiveAccessorSuffix(Field field) {
+        return field.getType() instanceof Enum ? "Value" : "";
+    }
+
+    /**
+     * Primitive iterator type for repeated field, or null if there is no
+     * primitive iterator for its java type ({@code float} and {@code boolean}).
+     */
+    @Nullable
+    public static String getPrimitiveIteratorType(Field field) {
+        switch (getRepeatedValueType(field)) {
+            case "int":
+                return PRIMITIVE_ITERATOR + ".OfInt";
+            case "long":
+                return PRIMITIVE_ITERATOR + ".OfLong";
+            case "double":
+                return PRIMITIVE_ITERATOR + ".OfDouble";
+            default:
+                return null;
+        }
+    }
 }
@@ -1,12 +1,16 @@
 package io.protostuff.generator.java;
 
+import io.protostuff.compiler.model.Field;
 import io.protostuff.compiler.model.Message;
 import io.protostuff.compiler.model.Oneof;
+import io.protostuff.generator.CompilerModule;
 import io.protostuff.generator.Formatter;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Kostiantyn Shchepanovskyi
@@ -17,6 +21,35 @@ public class MessageUtil {
         return !message.getFields().isEmpty();
     }
 
+    /**
+     * Test if message instances can be cleared and reused, it is enabled by
+     * {@link CompilerModule#MUTABLE_MESSAGES_OPTION} module option.
+     */
+    public static boolean isMutable(Message message) {
+        return ProtoUtil.isModuleOptionEnabled(message.getProto(), CompilerModule.MUTABLE_MESSAGES_OPTION);
+    }
+
+    public static boolean hasPackedFields(Message message) {
+        for (Field field : message.getFields()) {
+            if (MessageFieldUtil.isPacked(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fields that can be looked up by JSON name. If several fields have the
+     * same JSON name, the last one is used.
+     */
+    public static List<Field> fieldsByJsonName(Message message) {
+        Map<String, Field> fields = new LinkedHashMap<>();
+        for (Field field : message.getFields()) {
+            fields.put(MessageFieldUtil.getJsonFieldName(field), field);
+        }
+        return new ArrayList<>(fields.values());
+    }
+
     public static List<String> bitFieldNames(Message message) {
         int fieldCount = message.getFieldCount();
         if (fieldCount == 0) {
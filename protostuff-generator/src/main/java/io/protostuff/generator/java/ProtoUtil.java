@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 import io.protostuff.compiler.model.DynamicMessage;
+import io.protostuff.compiler.model.Module;
 import io.protostuff.compiler.model.Proto;
 import io.protostuff.generator.GeneratorInfo;
 
@@ -28,4 +29,17 @@ public class ProtoUtil {
         String javaPackage = getPackage(proto);
         return javaPackage.replace('.', '/');
     }
+
+    /**
+     * Test if boolean generator option is enabled for the module of given
+     * proto file.
+     */
+    public static boolean isModuleOptionEnabled(Proto proto, String option) {
+        Module module = proto == null ? null : proto.getModule();
+        if (module == null) {
+            return false;
+        }
+        Object value = module.getOptions().get(option);
+        return Boolean.parseBoolean(String.valueOf(value));
+    }
 }
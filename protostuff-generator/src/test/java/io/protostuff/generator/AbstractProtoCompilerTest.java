@@ -0,0 +1,74 @@
+package io.protostuff.generator;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import io.protostuff.compiler.ParserModule;
+import io.protostuff.compiler.model.ImmutableModule;
+import io.protostuff.compiler.model.Module;
+import io.protostuff.compiler.parser.ClasspathFileReader;
+import io.protostuff.compiler.parser.Importer;
+import io.protostuff.compiler.parser.ProtoContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class AbstractProtoCompilerTest {
+
+    @Test
+    public void parallelGeneration() throws Exception {
+        Map<String, String> sequential = generate(MoreExecutors.directExecutor());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Map<String, String> parallel = generate(executor);
+            assertFalse(sequential.isEmpty());
+            assertEquals(sequential, parallel);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, String> generate(Executor executor) {
+        ConcurrentMap<String, ByteArrayOutputStream> files = new ConcurrentHashMap<>();
+        Injector injector = Guice.createInjector(new ParserModule(),
+                Modules.override(new CompilerModule()).with(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(OutputStreamFactory.class).toInstance(location -> {
+                            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                            files.put(location, stream);
+                            return stream;
+                        });
+                    }
+                }));
+        Importer importer = injector.getInstance(Importer.class);
+        ProtoContext context = importer.importFile(new ClasspathFileReader(), "protostuff_unittest/messages_sample.proto");
+        Module module = ImmutableModule.builder()
+                .name("test")
+                .addProtos(context.getProto())
+                .output("out")
+                .build();
+        context.getProto().setModule(module);
+        ProtoCompiler compiler = injector.getInstance(CompilerRegistry.class).findCompiler(CompilerModule.JAVA_COMPILER);
+        compiler.compile(module, module.getProtos(), executor);
+        Map<String, String> result = new TreeMap<>();
+        files.forEach((name, stream) -> result.put(name, new String(stream.toByteArray(), StandardCharsets.UTF_8)));
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package io.protostuff.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class CompilerUtilsTest {
+
+    private static final String RESOURCE = "io/protostuff/generator/java/schema.stg";
+
+    @Test
+    public void copyResource() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new CompilerUtils(location -> output).copyResource(RESOURCE, "schema.stg");
+        assertTrue(output.size() > 0);
+    }
+
+    /**
+     * File output streams write files when they are closed,
+     * so close failures are copy failures.
+     */
+    @Test
+    public void copyResource_closeFailed() throws Exception {
+        OutputStreamFactory outputStreamFactory = location -> new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        CompilerUtils compilerUtils = new CompilerUtils(outputStreamFactory);
+        GeneratorException e = expectThrows(GeneratorException.class,
+                () -> compilerUtils.copyResource(RESOURCE, "schema.stg"));
+        assertTrue(e.getMessage().contains(RESOURCE));
+    }
+}
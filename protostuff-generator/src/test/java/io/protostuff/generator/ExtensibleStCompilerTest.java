@@ -0,0 +1,89 @@
+package io.protostuff.generator;
+
+import io.protostuff.compiler.model.ImmutableModule;
+import io.protostuff.compiler.model.Module;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class ExtensibleStCompilerTest {
+
+    private Path tempDirectory;
+    private String templateFileName;
+    private Map<String, ByteArrayOutputStream> outputs;
+    private StCompilerFactory compilerFactory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("protostuff-test-");
+        Path templateFile = tempDirectory.resolve("test.stg");
+        Files.write(templateFile, ("module_compiler_enabled(module) ::= \"true\"\n"
+                + "module_compiler_output(module) ::= \"<module.name>.txt\"\n"
+                + "module_compiler_template(module) ::= \"<module.value>\"\n")
+                .getBytes(StandardCharsets.UTF_8));
+        templateFileName = templateFile.toString();
+        outputs = new ConcurrentHashMap<>();
+        OutputStreamFactory outputStreamFactory = location -> outputs
+                .computeIfAbsent(location, key -> new ByteArrayOutputStream());
+        compilerFactory = template -> new StCompiler(outputStreamFactory, template);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    /**
+     * Template groups are shared by compilers with providers of the same
+     * class, but every compiler renders templates using its own provider.
+     */
+    @Test
+    public void providerInstancesOfSameClass() throws Exception {
+        ProtoCompiler first = create(new ValueExtensionProvider("a"));
+        ProtoCompiler second = create(new ValueExtensionProvider("b"));
+        first.compile(module("first"));
+        second.compile(module("second"));
+        first.compile(module("third"));
+        assertEquals("a", output("first"));
+        assertEquals("b", output("second"));
+        assertEquals("a", output("third"));
+    }
+
+    private ProtoCompiler create(ExtensionProvider extensionProvider) {
+        return new ExtensibleStCompiler(compilerFactory,
+                Collections.singletonList(templateFileName), extensionProvider);
+    }
+
+    private Module module(String name) {
+        return ImmutableModule.builder()
+                .name(name)
+                .output(tempDirectory.toString())
+                .build();
+    }
+
+    private String output(String moduleName) {
+        String location = tempDirectory.resolve(moduleName + ".txt").toString();
+        return new String(outputs.get(location).toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static class ValueExtensionProvider extends AbstractExtensionProvider {
+
+        ValueExtensionProvider(String value) {
+            registerProperty(ImmutableModule.class, "value", module -> value);
+        }
+    }
+}
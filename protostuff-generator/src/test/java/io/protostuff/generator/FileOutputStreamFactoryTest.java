@@ -0,0 +1,117 @@
+package io.protostuff.generator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class FileOutputStreamFactoryTest {
+
+    private static final FileTime OLD_TIME = FileTime.fromMillis(1000000000000L);
+
+    private Path tempDirectory;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("protostuff-test-");
+        file = tempDirectory.resolve("dir/file.txt");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.getParent());
+        Files.delete(tempDirectory);
+    }
+
+    @Test
+    public void writeIfChanged() throws Exception {
+        OutputStreamFactory factory = new FileOutputStreamFactory(true);
+        write(factory, "content");
+        assertEquals("content", read());
+
+        Files.setLastModifiedTime(file, OLD_TIME);
+        write(factory, "content");
+        assertEquals(OLD_TIME, Files.getLastModifiedTime(file));
+
+        write(factory, "changed");
+        assertEquals("changed", read());
+        assertNotEquals(OLD_TIME, Files.getLastModifiedTime(file));
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void writeIfChanged_permissions() throws Exception {
+        assumeTrue(Files.getFileAttributeView(tempDirectory, PosixFileAttributeView.class) != null);
+        OutputStreamFactory factory = new FileOutputStreamFactory(true);
+        write(factory, "content");
+        // new file has default permissions, not only owner's
+        Path plainFile = tempDirectory.resolve("plain.txt");
+        Files.createFile(plainFile);
+        Set<PosixFilePermission> defaultPermissions = Files.getPosixFilePermissions(plainFile);
+        Files.delete(plainFile);
+        assertEquals(defaultPermissions, Files.getPosixFilePermissions(file));
+
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(file, permissions);
+        write(factory, "changed");
+        assertEquals("changed", read());
+        assertEquals(permissions, Files.getPosixFilePermissions(file));
+    }
+
+    @Test
+    public void writeIfChanged_discard() throws Exception {
+        OutputStreamFactory factory = new FileOutputStreamFactory(true);
+        write(factory, "content");
+        try (OutputStream stream = factory.createStream(file.toString())) {
+            stream.write("partial".getBytes(StandardCharsets.UTF_8));
+            assertTrue(stream instanceof OutputStreamFactory.Discardable);
+            ((OutputStreamFactory.Discardable) stream).discard();
+        }
+        assertEquals("content", read());
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void writeAlways() throws Exception {
+        OutputStreamFactory factory = new FileOutputStreamFactory(false);
+        write(factory, "content");
+        Files.setLastModifiedTime(file, OLD_TIME);
+        write(factory, "content");
+        assertEquals("content", read());
+        assertNotEquals(OLD_TIME, Files.getLastModifiedTime(file));
+    }
+
+    private void write(OutputStreamFactory factory, String content) throws Exception {
+        try (OutputStream stream = factory.createStream(file.toString())) {
+            stream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String read() throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+package io.protostuff.generator;
+
+import io.protostuff.compiler.model.ImmutableModuleConfiguration;
+import io.protostuff.compiler.model.ModuleConfiguration;
+import io.protostuff.compiler.parser.FileReader;
+import io.protostuff.compiler.parser.Importer;
+import io.protostuff.compiler.parser.LocalFileReader;
+import io.protostuff.compiler.parser.ProtoContext;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class ModuleCacheTest extends AbstractCompilerTest {
+
+    private Path tempDirectory;
+    private Path source;
+
+    @BeforeEach
+    public void createFiles() throws Exception {
+        tempDirectory = Files.createTempDirectory("protostuff-test-");
+        source = Files.createDirectories(tempDirectory.resolve("source"));
+        Files.createDirectories(tempDirectory.resolve("output"));
+        Files.write(source.resolve("a.proto"), "import \"b.proto\";\nmessage A { optional B b = 1; }".getBytes());
+        Files.write(source.resolve("b.proto"), "message B {}".getBytes());
+    }
+
+    @AfterEach
+    public void deleteFiles() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testUpToDate() throws Exception {
+        ModuleConfiguration configuration = ImmutableModuleConfiguration.builder()
+                .name("test")
+                .generator("java")
+                .output(tempDirectory.resolve("output").toString())
+                .addIncludePaths(source)
+                .addProtoFiles("a.proto")
+                .build();
+        ModuleCache cache = new ModuleCache(tempDirectory.resolve("cache"));
+        FileReader reader = new LocalFileReader(source);
+        assertFalse(cache.isUpToDate(configuration, reader));
+
+        Importer importer = injector.getInstance(Importer.class);
+        ProtoContext context = importer.importFile(reader, "a.proto");
+        cache.update(configuration, reader, Collections.singletonList(context), Collections.emptyList());
+        assertTrue(cache.isUpToDate(configuration, reader));
+
+        // imported file is changed
+        Files.write(source.resolve("b.proto"), "message B { optional int32 x = 1; }".getBytes());
+        assertFalse(cache.isUpToDate(configuration, reader));
+    }
+
+    @Test
+    public void testOutputFileDeleted() throws Exception {
+        ModuleConfiguration configuration = configuration().build();
+        ModuleCache cache = new ModuleCache(tempDirectory.resolve("cache"));
+        FileReader reader = new LocalFileReader(source);
+        Path outputFile = Files.write(tempDirectory.resolve("output").resolve("A.java"), "class A {}".getBytes());
+        update(cache, configuration, reader, outputFile);
+        assertTrue(cache.isUpToDate(configuration, reader));
+        assertEquals(Collections.singletonList(outputFile.toString()), cache.getOutputFiles(configuration));
+
+        Files.delete(outputFile);
+        assertFalse(cache.isUpToDate(configuration, reader));
+    }
+
+    @Test
+    public void testTemplateChanged() throws Exception {
+        Path template = Files.write(tempDirectory.resolve("template.stg"), "a() ::= \"a\"\n".getBytes());
+        ModuleConfiguration configuration = configuration()
+                .generator(CompilerModule.ST4_COMPILER)
+                .putOptions(CompilerModule.TEMPLATES_OPTION, Collections.singletonList(template.toString()))
+                .build();
+        ModuleCache cache = new ModuleCache(tempDirectory.resolve("cache"));
+        FileReader reader = new LocalFileReader(source);
+        Path outputFile = Files.write(tempDirectory.resolve("output").resolve("a.txt"), "a".getBytes());
+        update(cache, configuration, reader, outputFile);
+        assertTrue(cache.isUpToDate(configuration, reader));
+
+        Files.write(template, "a() ::= \"b\"\n".getBytes());
+        assertFalse(cache.isUpToDate(configuration, reader));
+    }
+
+    private ImmutableModuleConfiguration.Builder configuration() {
+        return ImmutableModuleConfiguration.builder()
+                .name("test")
+                .generator("java")
+                .output(tempDirectory.resolve("output").toString())
+                .addIncludePaths(source)
+                .addProtoFiles("a.proto");
+    }
+
+    private void update(ModuleCache cache, ModuleConfiguration configuration, FileReader reader, Path outputFile) {
+        Importer importer = injector.getInstance(Importer.class);
+        ProtoContext context = importer.importFile(reader, "a.proto");
+        cache.update(configuration, reader, Collections.singletonList(context),
+                Collections.singletonList(outputFile.toString()));
+    }
+}
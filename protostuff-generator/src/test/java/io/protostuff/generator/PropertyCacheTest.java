@@ -0,0 +1,45 @@
+package io.protostuff.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class PropertyCacheTest {
+
+    @Test
+    public void computeOnce() throws Exception {
+        PropertyCache cache = new PropertyCache();
+        AtomicInteger counter = new AtomicInteger();
+        Object object = new Object();
+        assertEquals(1, cache.get(object, "a", counter::incrementAndGet));
+        assertEquals(1, cache.get(object, "a", counter::incrementAndGet));
+        assertEquals(2, cache.get(object, "b", counter::incrementAndGet));
+        assertEquals(3, cache.get(new Object(), "a", counter::incrementAndGet));
+    }
+
+    @Test
+    public void cacheNull() throws Exception {
+        PropertyCache cache = new PropertyCache();
+        AtomicInteger counter = new AtomicInteger();
+        Object object = new Object();
+        assertNull(cache.get(object, "a", () -> {
+            counter.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get(object, "a", counter::incrementAndGet));
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void compareByIdentity() throws Exception {
+        PropertyCache cache = new PropertyCache();
+        assertEquals("a", cache.get(new String("key"), "p", () -> "a"));
+        assertEquals("b", cache.get(new String("key"), "p", () -> "b"));
+    }
+}
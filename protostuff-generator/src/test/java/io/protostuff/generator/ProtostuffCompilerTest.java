@@ -0,0 +1,67 @@
+package io.protostuff.generator;
+
+import io.protostuff.compiler.model.ImmutableModuleConfiguration;
+import io.protostuff.compiler.parser.InMemoryFileReader;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class ProtostuffCompilerTest {
+
+    private Path tempDirectory;
+    private InMemoryFileReader reader;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("protostuff-test-");
+        reader = new InMemoryFileReader(Collections.singletonMap("test.proto",
+                "syntax = \"proto3\";\n"
+                        + "package test;\n"
+                        + "message A { repeated int32 values = 1; }\n"));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    /**
+     * Parsed files are shared by compilations of different modules, but
+     * generated code should depend only on options of compiled module.
+     */
+    @Test
+    public void sameProtoInModulesWithDifferentOptions() throws Exception {
+        ProtostuffCompiler compiler = new ProtostuffCompiler();
+        assertFalse(compile(compiler, "first", false).contains("int[] values;"));
+        assertTrue(compile(compiler, "second", true).contains("int[] values;"));
+        assertFalse(compile(compiler, "third", false).contains("int[] values;"));
+    }
+
+    private String compile(ProtostuffCompiler compiler, String name, boolean primitiveRepeatedFields)
+            throws Exception {
+        Path output = tempDirectory.resolve(name);
+        ImmutableModuleConfiguration.Builder builder = ImmutableModuleConfiguration.builder()
+                .name(name)
+                .generator(CompilerModule.JAVA_COMPILER)
+                .output(output.toString())
+                .addProtoFiles("test.proto");
+        if (primitiveRepeatedFields) {
+            builder.putOptions(CompilerModule.PRIMITIVE_REPEATED_FIELDS_OPTION, true);
+        }
+        compiler.compile(builder.build(), reader);
+        byte[] content = Files.readAllBytes(output.resolve("test").resolve("A.java"));
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
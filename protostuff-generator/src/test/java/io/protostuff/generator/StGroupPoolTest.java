@@ -0,0 +1,108 @@
+package io.protostuff.generator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stringtemplate.v4.STGroup;
+import org.stringtemplate.v4.STGroupFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class StGroupPoolTest {
+
+    private Path tempDirectory;
+    private Path mainFile;
+    private Path importedFile;
+    private AtomicInteger createdGroups;
+    private Supplier<STGroup> groupFactory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("protostuff-test-");
+        mainFile = tempDirectory.resolve("main.stg");
+        importedFile = tempDirectory.resolve("imported.stg");
+        write(mainFile, "import \"imported.stg\"\n\nmain() ::= \"<value()>\"\n");
+        write(importedFile, "value() ::= \"a\"\n");
+        createdGroups = new AtomicInteger();
+        groupFactory = () -> {
+            createdGroups.incrementAndGet();
+            return new STGroupFile(mainFile.toString());
+        };
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(mainFile);
+        Files.deleteIfExists(importedFile);
+        Files.delete(tempDirectory);
+    }
+
+    @Test
+    public void sharedGroup() throws Exception {
+        StGroupPool pool = get("key");
+        STGroup group = pool.borrow();
+        assertEquals("a", group.getInstanceOf("main").render());
+        pool.release(group);
+
+        StGroupPool samePool = get("key");
+        assertSame(pool, samePool);
+        assertSame(group, samePool.borrow());
+        assertEquals(1, createdGroups.get());
+
+        // borrowed group is not shared
+        STGroup anotherGroup = samePool.borrow();
+        assertNotSame(group, anotherGroup);
+        assertEquals(2, createdGroups.get());
+    }
+
+    @Test
+    public void differentConfiguration() throws Exception {
+        StGroupPool pool = get("key");
+        assertNotSame(pool, get("another key"));
+    }
+
+    @Test
+    public void reloadChangedTemplate() throws Exception {
+        StGroupPool pool = get("key");
+        write(importedFile, "value() ::= \"b\"\n");
+        StGroupPool newPool = get("key");
+        assertNotSame(pool, newPool);
+        assertEquals("b", newPool.borrow().getInstanceOf("main").render());
+    }
+
+    @Test
+    public void constantValue() throws Exception {
+        write(mainFile, "enabled(arg) ::= \"true\"\n"
+                + "empty(arg) ::= \"\"\n"
+                + "output(arg) ::= \"<arg>.java\"\n"
+                + "conditional(arg) ::= \"<if(arg)>true<else>false<endif>\"\n");
+        StGroupPool pool = get("key");
+        STGroup group = pool.borrow();
+        assertEquals("true", pool.getConstantValue(group, "enabled"));
+        assertEquals("", pool.getConstantValue(group, "empty"));
+        assertNull(pool.getConstantValue(group, "output"));
+        assertNull(pool.getConstantValue(group, "conditional"));
+        assertNull(pool.getConstantValue(group, "undefined"));
+    }
+
+    private StGroupPool get(String key) {
+        return StGroupPool.get(mainFile.toString(), Collections.singletonList(key), groupFactory);
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,10 +1,21 @@
 package io.protostuff.generator.java;
 
+import io.protostuff.compiler.model.DynamicMessage;
 import io.protostuff.compiler.model.Field;
+import io.protostuff.compiler.model.FieldModifier;
+import io.protostuff.compiler.model.ImmutableModule;
+import io.protostuff.compiler.model.Message;
+import io.protostuff.compiler.model.Proto;
+import io.protostuff.compiler.model.ScalarFieldType;
+import io.protostuff.compiler.model.Syntax;
+import io.protostuff.generator.CompilerModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -46,4 +57,81 @@ public class MessageFieldUtilTest {
         assertEquals(-2147483648, MessageFieldUtil.bitFieldMask(f32));
         assertEquals(1, MessageFieldUtil.bitFieldMask(f33));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIsPacked() throws Exception {
+        Proto proto = new Proto();
+        Message message = new Message(proto);
+        message.setProto(proto);
+        Field field = new Field(message);
+        field.setModifier(FieldModifier.REPEATED);
+        field.setType(ScalarFieldType.INT64);
+        assertFalse(MessageFieldUtil.isPacked(field));
+
+        proto.setSyntax(new Syntax(proto, "proto3"));
+        assertTrue(MessageFieldUtil.isPacked(field));
+
+        field.getOptions().set(MessageFieldUtil.OPTION_PACKED, DynamicMessage.Value.createBoolean(false));
+        assertFalse(MessageFieldUtil.isPacked(field));
+
+        proto.setSyntax(new Syntax(proto, "proto2"));
+        field.getOptions().set(MessageFieldUtil.OPTION_PACKED, DynamicMessage.Value.createBoolean(true));
+        assertTrue(MessageFieldUtil.isPacked(field));
+
+        field.setType(ScalarFieldType.STRING);
+        assertFalse(MessageFieldUtil.isPacked(field));
+    }
+
+    @Test
+    public void testIsPrimitiveRepeated() throws Exception {
+        Proto proto = new Proto();
+        Message message = new Message(proto);
+        message.setProto(proto);
+        Field field = new Field(message);
+        field.setModifier(FieldModifier.REPEATED);
+        field.setType(ScalarFieldType.INT64);
+        assertFalse(MessageFieldUtil.isPrimitiveRepeated(field));
+
+        proto.setModule(ImmutableModule.builder()
+                .name("test")
+                .output("out")
+                .putOptions(CompilerModule.PRIMITIVE_REPEATED_FIELDS_OPTION, true)
+                .build());
+        assertTrue(MessageFieldUtil.isPrimitiveRepeated(field));
+        assertEquals("long", MessageFieldUtil.getRepeatedValueType(field));
+        assertEquals("java.util.PrimitiveIterator.OfLong", MessageFieldUtil.getPrimitiveIteratorType(field));
+
+        field.setType(ScalarFieldType.FLOAT);
+        assertNull(MessageFieldUtil.getPrimitiveIteratorType(field));
+
+        field.setType(ScalarFieldType.STRING);
+        assertFalse(MessageFieldUtil.isPrimitiveRepeated(field));
+    }
+
+    @Test
+    public void testProtobufTag() throws Exception {
+        Message message = new Message(null);
+        Field field = new Field(message);
+        field.setName("field");
+        field.setTag(16);
+        field.setType(ScalarFieldType.SINT32);
+        assertEquals(128, MessageFieldUtil.protobufTag(field));
+        assertEquals(2, MessageFieldUtil.protobufTagSize(field));
+        assertEquals("__varintSize(((__value << 1) ^ (__value >> 31)) & 0xFFFFFFFFL)",
+                MessageFieldUtil.valueSizeExpression(field));
+
+        field.setType(ScalarFieldType.DOUBLE);
+        assertEquals(129, MessageFieldUtil.protobufTag(field));
+        assertEquals("8", MessageFieldUtil.valueSizeExpression(field));
+
+        field.setType(ScalarFieldType.STRING);
+        assertEquals(130, MessageFieldUtil.protobufTag(field));
+        assertEquals("__position = __writeString(__buffer, __position, __value);",
+                MessageFieldUtil.valueWriteStatement(field));
+
+        field.setType(ScalarFieldType.FIXED32);
+        field.setTag(1);
+        assertEquals(13, MessageFieldUtil.protobufTag(field));
+        assertEquals(1, MessageFieldUtil.protobufTagSize(field));
+    }
+}
@@ -1,12 +1,18 @@
 package io.protostuff.generator.java;
 
 import io.protostuff.compiler.model.Field;
+import io.protostuff.compiler.model.ImmutableModule;
 import io.protostuff.compiler.model.Message;
+import io.protostuff.compiler.model.Proto;
+import io.protostuff.generator.CompilerModule;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Kostiantyn Shchepanovskyi
@@ -29,4 +35,37 @@ public class MessageUtilTest {
         assertEquals("__bitField0", bitFieldNames.get(0));
         assertEquals("__bitField1", bitFieldNames.get(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFieldsByJsonName() throws Exception {
+        Message m = new Message(null);
+        Field a = new Field(m);
+        a.setName("field_name");
+        Field b = new Field(m);
+        b.setName("another");
+        Field c = new Field(m);
+        c.setName("fieldName");
+        m.addField(a);
+        m.addField(b);
+        m.addField(c);
+        List<Field> fields = MessageUtil.fieldsByJsonName(m);
+        assertEquals(2, fields.size());
+        assertSame(c, fields.get(0));
+        assertSame(b, fields.get(1));
+    }
+
+    @Test
+    public void testIsMutable() throws Exception {
+        Proto proto = new Proto();
+        Message message = new Message(proto);
+        message.setProto(proto);
+        assertFalse(MessageUtil.isMutable(message));
+
+        proto.setModule(ImmutableModule.builder()
+                .name("test")
+                .output("out")
+                .putOptions(CompilerModule.MUTABLE_MESSAGES_OPTION, true)
+                .build());
+        assertTrue(MessageUtil.isMutable(message));
+    }
+}
@@ -429,4 +429,15 @@ public class MessageTest {
         SimpleMessage message = SimpleMessage.newBuilder().build();
         assertSame(TestMessage.getDefaultInstance(), message.getMessage());
     }
+
+    @Test
+    public void schemaFieldLookup() throws Exception {
+        io.protostuff.Schema<SimpleMessage> schema = SimpleMessage.getSchema();
+        assertEquals(12, schema.getFieldNumber("repeatedInt32"));
+        assertEquals("repeatedInt32", schema.getFieldName(12));
+        assertEquals(0, schema.getFieldNumber("repeated_int32"));
+        assertEquals(0, schema.getFieldNumber(null));
+        assertNull(schema.getFieldName(1));
+        assertEquals(0, MessageWithoutFields.getSchema().getFieldNumber("int32"));
+    }
 }
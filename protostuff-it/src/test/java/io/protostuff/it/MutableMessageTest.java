@@ -0,0 +1,110 @@
+package io.protostuff.it;
+
+import io.protostuff.ByteString;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+import io.protostuff.Schema;
+import io.protostuff.it.mutable_test.MutableEnum;
+import io.protostuff.it.mutable_test.MutableMsg;
+import io.protostuff.it.mutable_test.MutableNestedMsg;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class MutableMessageTest {
+
+    private static final MutableMsg FIRST = MutableMsg.newBuilder()
+            .setInt32(42)
+            .setString("first")
+            .setBytes(ByteString.copyFromUtf8("bytes"))
+            .setEnum(MutableEnum.MUTABLE_B)
+            .setNested(nested(1))
+            .addRepeatedNested(nested(2))
+            .addRepeatedNested(nested(3))
+            .addRepeatedInt64(1L)
+            .addRepeatedInt64(2L)
+            .addRepeatedString("a")
+            .addRepeatedEnum(MutableEnum.MUTABLE_B)
+            .putMap("key", 1)
+            .setOneofNested(nested(4))
+            .build();
+
+    private static final MutableMsg SECOND = MutableMsg.newBuilder()
+            .setString("second")
+            .setNested(nested(5))
+            .addRepeatedNested(nested(6))
+            .putMap("another key", 2)
+            .setOneofString("oneof")
+            .build();
+
+    private static MutableNestedMsg nested(int value) {
+        return MutableNestedMsg.newBuilder()
+                .setValue(value)
+                .addValues(value)
+                .build();
+    }
+
+    @Test
+    public void clearAndMerge() throws Exception {
+        Schema<MutableMsg> schema = MutableMsg.getSchema();
+        MutableMsg message = schema.newMessage();
+        ProtobufIOUtil.mergeFrom(toByteArray(FIRST), message, schema);
+        assertEquals(FIRST, message);
+        assertEquals(FIRST.getSerializedSize(), message.getSerializedSize());
+
+        ProtobufIOUtil.mergeFrom(toByteArray(SECOND), message.clear(), schema);
+        assertEquals(SECOND, message);
+        assertEquals(SECOND.getSerializedSize(), message.getSerializedSize());
+
+        assertEquals(schema.newMessage(), message.clear());
+        assertEquals(0, message.getSerializedSize());
+    }
+
+    @Test
+    public void nestedMessagesAreReused() throws Exception {
+        Schema<MutableMsg> schema = MutableMsg.getSchema();
+        MutableMsg message = schema.newMessage();
+        ProtobufIOUtil.mergeFrom(toByteArray(FIRST), message, schema);
+        MutableNestedMsg nested = message.getNested();
+        List<MutableNestedMsg> repeatedNested = message.getRepeatedNestedList();
+        MutableNestedMsg lastRepeatedNested = repeatedNested.get(1);
+
+        ProtobufIOUtil.mergeFrom(toByteArray(SECOND), message.clear(), schema);
+        assertSame(nested, message.getNested());
+        assertSame(repeatedNested, message.getRepeatedNestedList());
+        assertSame(lastRepeatedNested, message.getRepeatedNested(0));
+        assertEquals(nested(5), message.getNested());
+        assertEquals(nested(6), message.getRepeatedNested(0));
+    }
+
+    @Test
+    public void mergeWithoutClear() throws Exception {
+        Schema<MutableMsg> schema = MutableMsg.getSchema();
+        MutableMsg message = schema.newMessage();
+        byte[] bytes = toByteArray(FIRST);
+        ProtobufIOUtil.mergeFrom(bytes, message, schema);
+        IllegalStateException e = expectThrows(IllegalStateException.class,
+                () -> ProtobufIOUtil.mergeFrom(bytes, message, schema));
+        assertTrue(e.getMessage().contains("clear()"));
+    }
+
+    @Test
+    public void clearBuiltMessage() throws Exception {
+        assertThrows(IllegalStateException.class, FIRST::clear);
+        assertThrows(IllegalStateException.class, () -> MutableMsg.getDefaultInstance().clear());
+        assertEquals(nested(1), FIRST.getNested());
+    }
+
+    private static byte[] toByteArray(MutableMsg message) {
+        return ProtobufIOUtil.toByteArray(message, MutableMsg.getSchema(), LinkedBuffer.allocate());
+    }
+}
@@ -0,0 +1,143 @@
+package io.protostuff.it;
+
+import io.protostuff.JsonIOUtil;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+import io.protostuff.ProtostuffIOUtil;
+import io.protostuff.Schema;
+import io.protostuff.it.packed_test.Proto2PackedEnum;
+import io.protostuff.it.packed_test.Proto2PackedMsg;
+import io.protostuff.it.packed_test.Proto3PackedEnum;
+import io.protostuff.it.packed_test.Proto3PackedMsg;
+import io.protostuff.it.scalar_test.RepeatedScalarFieldTestMsg;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class PackedTest {
+
+    private static final Proto2PackedMsg PROTO2_MESSAGE = Proto2PackedMsg.newBuilder()
+            .addA(1L)
+            .addA(300L)
+            .addB(1L)
+            .addB(300L)
+            .addC(Proto2PackedEnum.PROTO2_B)
+            .addC(Proto2PackedEnum.PROTO2_C)
+            .build();
+
+    private static final byte[] PROTO2_BYTES = {
+            // a: packed
+            0x0A, 0x03, 0x01, (byte) 0xAC, 0x02,
+            // b: not packed
+            0x10, 0x01, 0x10, (byte) 0xAC, 0x02,
+            // c: packed
+            0x1A, 0x02, 0x01, 0x02
+    };
+
+    private static final Proto3PackedMsg PROTO3_MESSAGE = Proto3PackedMsg.newBuilder()
+            .addA(1L)
+            .addA(300L)
+            .addB(1L)
+            .addB(300L)
+            .addC(Proto3PackedEnum.PROTO3_B)
+            .addC(Proto3PackedEnum.PROTO3_C)
+            .build();
+
+    private static final byte[] PROTO3_BYTES = {
+            // a: [packed = false]
+            0x08, 0x01, 0x08, (byte) 0xAC, 0x02,
+            // b: packed by default
+            0x12, 0x03, 0x01, (byte) 0xAC, 0x02,
+            // c: [packed = false]
+            0x18, 0x01, 0x18, 0x02
+    };
+
+    @Test
+    public void proto2_serialize() throws Exception {
+        assertArrayEquals(PROTO2_BYTES, toByteArray(PROTO2_MESSAGE, Proto2PackedMsg.getSchema()));
+    }
+
+    @Test
+    public void proto3_serialize() throws Exception {
+        assertArrayEquals(PROTO3_BYTES, toByteArray(PROTO3_MESSAGE, Proto3PackedMsg.getSchema()));
+    }
+
+    @Test
+    public void deserialize() throws Exception {
+        assertEquals(PROTO2_MESSAGE, parse(PROTO2_BYTES, Proto2PackedMsg.getSchema()));
+        assertEquals(PROTO3_MESSAGE, parse(PROTO3_BYTES, Proto3PackedMsg.getSchema()));
+    }
+
+    /**
+     * Both packed and not packed values should be accepted by parser,
+     * regardless of field options.
+     */
+    @Test
+    public void deserialize_otherEncoding() throws Exception {
+        Proto3PackedMsg proto3 = parse(PROTO2_BYTES, Proto3PackedMsg.getSchema());
+        assertEquals(PROTO3_MESSAGE, proto3);
+        Proto2PackedMsg proto2 = parse(PROTO3_BYTES, Proto2PackedMsg.getSchema());
+        assertEquals(PROTO2_MESSAGE, proto2);
+    }
+
+    @Test
+    public void scalars_roundTrip() throws Exception {
+        RepeatedScalarFieldTestMsg message = RepeatedScalarFieldTestMsg.newBuilder()
+                .addDouble(-1.5d)
+                .addDouble(Double.MAX_VALUE)
+                .addFloat(-1.5f)
+                .addFloat(Float.MIN_VALUE)
+                .addInt32(-1)
+                .addInt32(Integer.MAX_VALUE)
+                .addInt64(Long.MIN_VALUE)
+                .addInt64(0L)
+                .addUnsignedInt32(-1)
+                .addUnsignedInt32(1)
+                .addUnsignedInt64(-1L)
+                .addUnsignedInt64(Long.MAX_VALUE)
+                .addSignedInt32(Integer.MIN_VALUE)
+                .addSignedInt32(-1)
+                .addSignedInt64(Long.MIN_VALUE)
+                .addSignedInt64(Long.MAX_VALUE)
+                .addFixed32(-1)
+                .addFixed32(42)
+                .addFixed64(-1L)
+                .addFixed64(42L)
+                .addSignedFixed32(Integer.MIN_VALUE)
+                .addSignedFixed64(Long.MIN_VALUE)
+                .addBool(true)
+                .addBool(false)
+                .addString("string")
+                .build();
+        Schema<RepeatedScalarFieldTestMsg> schema = RepeatedScalarFieldTestMsg.getSchema();
+        assertEquals(message, parse(toByteArray(message, schema), schema));
+
+        RepeatedScalarFieldTestMsg protostuffResult = schema.newMessage();
+        byte[] protostuffBytes = ProtostuffIOUtil.toByteArray(message, schema, LinkedBuffer.allocate());
+        ProtostuffIOUtil.mergeFrom(protostuffBytes, protostuffResult, schema);
+        assertEquals(message, protostuffResult);
+
+        // JSON does not use packed encoding
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        JsonIOUtil.writeTo(stream, message, schema, false);
+        RepeatedScalarFieldTestMsg jsonResult = schema.newMessage();
+        JsonIOUtil.mergeFrom(stream.toByteArray(), jsonResult, schema, false);
+        assertEquals(message, jsonResult);
+    }
+
+    private static <T> byte[] toByteArray(T message, Schema<T> schema) {
+        return ProtobufIOUtil.toByteArray(message, schema, LinkedBuffer.allocate());
+    }
+
+    private static <T> T parse(byte[] bytes, Schema<T> schema) {
+        T result = schema.newMessage();
+        ProtobufIOUtil.mergeFrom(bytes, result, schema);
+        return result;
+    }
+}
@@ -0,0 +1,183 @@
+package io.protostuff.it;
+
+import io.protostuff.JsonIOUtil;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+import io.protostuff.ProtostuffIOUtil;
+import io.protostuff.Schema;
+import io.protostuff.it.primitive_test.PrimitiveEnum;
+import io.protostuff.it.primitive_test.PrimitiveRepeatedMsg;
+import io.protostuff.it.scalar_test.RepeatedScalarFieldTestMsg;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class PrimitiveRepeatedFieldTest {
+
+    private static PrimitiveRepeatedMsg.Builder newMessageBuilder() {
+        return PrimitiveRepeatedMsg.newBuilder()
+                .addDouble(-1.5d)
+                .addDouble(Double.MAX_VALUE)
+                .addFloat(-1.5f)
+                .addFloat(Float.MIN_VALUE)
+                .addInt32(-1)
+                .addInt32(Integer.MAX_VALUE)
+                .addInt64(Long.MIN_VALUE)
+                .addInt64(0L)
+                .addUnsignedInt32(-1)
+                .addUnsignedInt32(1)
+                .addUnsignedInt64(-1L)
+                .addUnsignedInt64(Long.MAX_VALUE)
+                .addSignedInt32(Integer.MIN_VALUE)
+                .addSignedInt32(-1)
+                .addSignedInt64(Long.MIN_VALUE)
+                .addSignedInt64(Long.MAX_VALUE)
+                .addFixed32(-1)
+                .addFixed32(42)
+                .addFixed64(-1L)
+                .addFixed64(42L)
+                .addSignedFixed32(Integer.MIN_VALUE)
+                .addSignedFixed64(Long.MIN_VALUE)
+                .addBool(true)
+                .addBool(false);
+    }
+
+    @Test
+    public void accessors() throws Exception {
+        PrimitiveRepeatedMsg.Builder builder = PrimitiveRepeatedMsg.newBuilder();
+        for (int i = 0; i < 10; i++) {
+            builder.addInt32(i);
+        }
+        builder.setInt32(9, 42);
+        PrimitiveRepeatedMsg message = builder.build();
+        assertEquals(10, message.getInt32Count());
+        assertEquals(5, message.getInt32(5));
+        assertEquals(42, message.getInt32(9));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 42}, message.getInt32Array());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 42), message.getInt32List());
+        PrimitiveIterator.OfInt iterator = message.getInt32Iterator();
+        int sum = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.nextInt();
+        }
+        assertEquals(78, sum);
+        assertThrows(IndexOutOfBoundsException.class, () -> message.getInt32(10));
+        assertThrows(UnsupportedOperationException.class, () -> message.getInt32List().add(1));
+    }
+
+    @Test
+    public void enumAccessors() throws Exception {
+        PrimitiveRepeatedMsg message = PrimitiveRepeatedMsg.newBuilder()
+                .addEnum(PrimitiveEnum.PRIMITIVE_B)
+                .addEnumValue(2)
+                .addEnumValue(42)
+                .build();
+        assertEquals(3, message.getEnumCount());
+        assertEquals(PrimitiveEnum.PRIMITIVE_B, message.getEnum(0));
+        assertEquals(PrimitiveEnum.PRIMITIVE_C, message.getEnum(1));
+        assertEquals(PrimitiveEnum.UNRECOGNIZED, message.getEnum(2));
+        assertEquals(42, message.getEnumValue(2));
+        assertArrayEquals(new int[] {1, 2, 42}, message.getEnumValueArray());
+        assertEquals(Arrays.asList(1, 2, 42), message.getEnumValueList());
+        assertEquals(Arrays.asList(PrimitiveEnum.PRIMITIVE_B, PrimitiveEnum.PRIMITIVE_C, PrimitiveEnum.UNRECOGNIZED),
+                message.getEnumList());
+        assertEquals(1, message.getEnumValueIterator().nextInt());
+        assertThrows(IllegalArgumentException.class,
+                () -> PrimitiveRepeatedMsg.newBuilder().addEnum(PrimitiveEnum.UNRECOGNIZED));
+    }
+
+    @Test
+    public void builderIsNotShared() throws Exception {
+        PrimitiveRepeatedMsg.Builder builder = PrimitiveRepeatedMsg.newBuilder()
+                .addInt64(1L);
+        PrimitiveRepeatedMsg message = builder.build();
+        builder.setInt64(0, 2L)
+                .addInt64(3L);
+        assertArrayEquals(new long[] {1L}, message.getInt64Array());
+        assertArrayEquals(new long[] {2L, 3L}, builder.getInt64Array());
+
+        PrimitiveRepeatedMsg merged = PrimitiveRepeatedMsg.newBuilder()
+                .mergeFrom(message)
+                .mergeFrom(builder.build())
+                .build();
+        assertEquals(Arrays.asList(1L, 2L, 3L), merged.getInt64List());
+        assertFalse(builder.clearInt64().getInt64Iterator().hasNext());
+    }
+
+    @Test
+    public void equalsAndHashCode() throws Exception {
+        PrimitiveRepeatedMsg message = newMessageBuilder().build();
+        PrimitiveRepeatedMsg same = newMessageBuilder().build();
+        assertEquals(message, same);
+        assertEquals(message.hashCode(), same.hashCode());
+        assertNotEquals(message, newMessageBuilder().addInt32(1).build());
+        assertNotEquals(message, newMessageBuilder().addDouble(Double.NaN).build());
+        assertEquals(newMessageBuilder().addDouble(Double.NaN).build(),
+                newMessageBuilder().addDouble(Double.NaN).build());
+        assertTrue(message.toString().contains("int32=[-1, 2147483647]"));
+    }
+
+    @Test
+    public void sameEncodingAsList() throws Exception {
+        PrimitiveRepeatedMsg message = newMessageBuilder().build();
+        RepeatedScalarFieldTestMsg listMessage = RepeatedScalarFieldTestMsg.newBuilder()
+                .addAllDouble(message.getDoubleList())
+                .addAllFloat(message.getFloatList())
+                .addAllInt32(message.getInt32List())
+                .addAllInt64(message.getInt64List())
+                .addAllUnsignedInt32(message.getUnsignedInt32List())
+                .addAllUnsignedInt64(message.getUnsignedInt64List())
+                .addAllSignedInt32(message.getSignedInt32List())
+                .addAllSignedInt64(message.getSignedInt64List())
+                .addAllFixed32(message.getFixed32List())
+                .addAllFixed64(message.getFixed64List())
+                .addAllSignedFixed32(message.getSignedFixed32List())
+                .addAllSignedFixed64(message.getSignedFixed64List())
+                .addAllBool(message.getBoolList())
+                .build();
+        assertArrayEquals(toByteArray(listMessage, RepeatedScalarFieldTestMsg.getSchema()),
+                toByteArray(message, PrimitiveRepeatedMsg.getSchema()));
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        PrimitiveRepeatedMsg message = newMessageBuilder()
+                .addEnum(PrimitiveEnum.PRIMITIVE_C)
+                .addUnpacked(300)
+                .addUnpacked(-1)
+                .addString("string")
+                .build();
+        Schema<PrimitiveRepeatedMsg> schema = PrimitiveRepeatedMsg.getSchema();
+
+        PrimitiveRepeatedMsg protobufResult = schema.newMessage();
+        ProtobufIOUtil.mergeFrom(toByteArray(message, schema), protobufResult, schema);
+        assertEquals(message, protobufResult);
+
+        PrimitiveRepeatedMsg protostuffResult = schema.newMessage();
+        byte[] protostuffBytes = ProtostuffIOUtil.toByteArray(message, schema, LinkedBuffer.allocate());
+        ProtostuffIOUtil.mergeFrom(protostuffBytes, protostuffResult, schema);
+        assertEquals(message, protostuffResult);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        JsonIOUtil.writeTo(stream, message, schema, false);
+        PrimitiveRepeatedMsg jsonResult = schema.newMessage();
+        JsonIOUtil.mergeFrom(stream.toByteArray(), jsonResult, schema, false);
+        assertEquals(message, jsonResult);
+    }
+
+    private static <T> byte[] toByteArray(T message, Schema<T> schema) {
+        return ProtobufIOUtil.toByteArray(message, schema, LinkedBuffer.allocate());
+    }
+}
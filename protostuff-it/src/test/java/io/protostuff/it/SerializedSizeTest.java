@@ -0,0 +1,205 @@
+package io.protostuff.it;
+
+import io.protostuff.ByteString;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+import io.protostuff.Schema;
+import io.protostuff.it.message_test.MapEnum;
+import io.protostuff.it.message_test.MessageWithoutFields;
+import io.protostuff.it.message_test.NestedMsg;
+import io.protostuff.it.message_test.ParentMsg;
+import io.protostuff.it.message_test.SimpleMessage;
+import io.protostuff.it.message_test.TestFieldNamedInstance;
+import io.protostuff.it.message_test.TestFieldNamedSerializedSize;
+import io.protostuff.it.message_test.TestMap;
+import io.protostuff.it.message_test.TestMessage;
+import io.protostuff.it.message_test.TestOneof;
+import io.protostuff.it.packed_test.Proto2PackedEnum;
+import io.protostuff.it.packed_test.Proto2PackedMsg;
+import io.protostuff.it.primitive_test.PrimitiveEnum;
+import io.protostuff.it.primitive_test.PrimitiveRepeatedMsg;
+import io.protostuff.it.scalar_test.RepeatedScalarFieldTestMsg;
+import io.protostuff.it.scalar_test.ScalarFieldTestMsg;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Messages encoded into array of exact size should be the same as
+ * messages encoded by protostuff runtime.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class SerializedSizeTest {
+
+    private static final String UNICODE = "a\u00e9\u0436\u4e2d\ud83d\ude00\ud800";
+
+    @Test
+    public void scalars() throws Exception {
+        check(ScalarFieldTestMsg.newBuilder().build(), ScalarFieldTestMsg.getSchema());
+        check(ScalarFieldTestMsg.newBuilder()
+                .setDouble(-1.5d)
+                .setFloat(Float.MIN_VALUE)
+                .setInt32(-1)
+                .setInt64(Long.MIN_VALUE)
+                .setUnsignedInt32(-1)
+                .setUnsignedInt64(-1L)
+                .setSignedInt32(Integer.MIN_VALUE)
+                .setSignedInt64(Long.MIN_VALUE)
+                .setFixed32(-1)
+                .setFixed64(42L)
+                .setSignedFixed32(Integer.MIN_VALUE)
+                .setSignedFixed64(Long.MIN_VALUE)
+                .setBool(true)
+                .setString(UNICODE)
+                .setBytes(ByteString.copyFrom(new byte[] {0, 1, -1}))
+                .build(), ScalarFieldTestMsg.getSchema());
+    }
+
+    @Test
+    public void repeated() throws Exception {
+        check(RepeatedScalarFieldTestMsg.newBuilder()
+                .addDouble(-1.5d)
+                .addFloat(-1.5f)
+                .addInt32(-1)
+                .addInt32(300)
+                .addInt64(Long.MIN_VALUE)
+                .addUnsignedInt32(-1)
+                .addUnsignedInt64(-1L)
+                .addSignedInt32(Integer.MIN_VALUE)
+                .addSignedInt64(Long.MAX_VALUE)
+                .addFixed32(-1)
+                .addFixed64(42L)
+                .addSignedFixed32(Integer.MIN_VALUE)
+                .addSignedFixed64(Long.MIN_VALUE)
+                .addBool(true)
+                .addBool(false)
+                .addString(UNICODE)
+                .addString("")
+                .addBytes(ByteString.copyFromUtf8("bytes"))
+                .build(), RepeatedScalarFieldTestMsg.getSchema());
+        check(Proto2PackedMsg.newBuilder()
+                .addA(300L)
+                .addB(-1L)
+                .addB(1L)
+                .addC(Proto2PackedEnum.PROTO2_C)
+                .build(), Proto2PackedMsg.getSchema());
+        check(PrimitiveRepeatedMsg.newBuilder()
+                .addInt32(-1)
+                .addSignedInt64(Long.MIN_VALUE)
+                .addDouble(1.5d)
+                .addEnum(PrimitiveEnum.PRIMITIVE_B)
+                .addUnpacked(300)
+                .addUnpacked(-1)
+                .build(), PrimitiveRepeatedMsg.getSchema());
+    }
+
+    @Test
+    public void messages() throws Exception {
+        check(MessageWithoutFields.newBuilder().build(), MessageWithoutFields.getSchema());
+        SimpleMessage simpleMessage = SimpleMessage.newBuilder()
+                .setInt32(42)
+                .setString(UNICODE)
+                .addRepeatedInt32(1)
+                .addRepeatedString("a")
+                .setMessage(TestMessage.newBuilder().setA(-1).build())
+                .setEnum(SimpleMessage.Enum.CONSTANT)
+                .build();
+        check(simpleMessage, SimpleMessage.getSchema());
+        char[] longName = new char[200];
+        Arrays.fill(longName, 'x');
+        check(ParentMsg.newBuilder()
+                .setNestedMsg(NestedMsg.newBuilder().setName(new String(longName)).build())
+                .addNestedRepeatedMsg(NestedMsg.newBuilder().build())
+                .addNestedRepeatedMsg(NestedMsg.newBuilder().setName("a").build())
+                .build(), ParentMsg.getSchema());
+        check(TestMap.newBuilder()
+                .putMapInt32Int32(-1, 0)
+                .putMapSint64Sint64(-1L, Long.MIN_VALUE)
+                .putMapFixed32Fixed32(1, 2)
+                .putMapInt32Double(1, -1.5d)
+                .putMapBoolBool(true, false)
+                .putMapStringString(UNICODE, "")
+                .putMapInt32Bytes(1, ByteString.copyFromUtf8("bytes"))
+                .putMapInt32Enum(1, MapEnum.MAP_ENUM_BAZ)
+                .putMapInt32SimpleMessage(1, simpleMessage)
+                .putMapStringSimpleMessage("", SimpleMessage.newBuilder().build())
+                .build(), TestMap.getSchema());
+        check(TestOneof.newBuilder().setFooInt(-1).build(), TestOneof.getSchema());
+        check(TestOneof.newBuilder().setFooString(UNICODE).build(), TestOneof.getSchema());
+        check(TestOneof.newBuilder().setSimpleMessage(simpleMessage).build(), TestOneof.getSchema());
+        check(TestOneof.newBuilder().setMapEnum(MapEnum.MAP_ENUM_BAR).build(), TestOneof.getSchema());
+        check(TestOneof.newBuilder().setFooBytes(ByteString.copyFromUtf8("bytes")).build(), TestOneof.getSchema());
+    }
+
+    @Test
+    public void writeToArray() throws Exception {
+        TestMessage message = TestMessage.newBuilder().setA(300).build();
+        byte[] buffer = new byte[5];
+        assertEquals(4, message.writeTo(buffer, 1));
+        assertArrayEquals(new byte[] {0, 0x08, (byte) 0xAC, 0x02, 0}, buffer);
+        assertThrows(IndexOutOfBoundsException.class, () -> message.writeTo(buffer, 3));
+    }
+
+    @Test
+    public void writeToByteBuffer() throws Exception {
+        TestMessage message = TestMessage.newBuilder().setA(300).build();
+        byte[] expected = {0x08, (byte) 0xAC, 0x02};
+        for (ByteBuffer buffer : Arrays.asList(ByteBuffer.allocate(4), ByteBuffer.allocateDirect(4))) {
+            buffer.put((byte) 0);
+            message.writeTo(buffer);
+            assertEquals(4, buffer.position());
+            buffer.flip().position(1);
+            byte[] actual = new byte[3];
+            buffer.get(actual);
+            assertArrayEquals(expected, actual);
+            assertThrows(BufferOverflowException.class, () -> message.writeTo(buffer));
+        }
+    }
+
+    /**
+     * Field getter is renamed, so it does not clash with {@code getSerializedSize()}.
+     */
+    @Test
+    public void fieldNamedSerializedSize() throws Exception {
+        TestFieldNamedSerializedSize message = TestFieldNamedSerializedSize.newBuilder()
+                .setSerializedSize(Long.MAX_VALUE)
+                .build();
+        assertEquals(Long.MAX_VALUE, message.getSerializedSize_());
+        check(message, TestFieldNamedSerializedSize.getSchema());
+    }
+
+    @Test
+    public void fieldNamesUsedByGeneratedCode() throws Exception {
+        check(TestFieldNamedInstance.newBuilder()
+                .setInstance(42)
+                .addOutput(1)
+                .addOutput(300)
+                .putEntry("a", 1)
+                .setBuffer(UNICODE)
+                .setKey(-1)
+                .build(), TestFieldNamedInstance.getSchema());
+    }
+
+    @Test
+    public void sizeIsResetAfterMerge() throws Exception {
+        Schema<TestMessage> schema = TestMessage.getSchema();
+        TestMessage message = schema.newMessage();
+        assertEquals(0, message.getSerializedSize());
+        ProtobufIOUtil.mergeFrom(new byte[] {0x08, (byte) 0xAC, 0x02}, message, schema);
+        assertEquals(3, message.getSerializedSize());
+    }
+
+    private static <T> void check(T message, Schema<T> schema) throws Exception {
+        byte[] expected = ProtobufIOUtil.toByteArray(message, schema, LinkedBuffer.allocate());
+        byte[] actual = (byte[]) message.getClass().getMethod("toByteArray").invoke(message);
+        assertArrayEquals(expected, actual, message.toString());
+        assertEquals(expected.length, message.getClass().getMethod("getSerializedSize").invoke(message));
+    }
+}
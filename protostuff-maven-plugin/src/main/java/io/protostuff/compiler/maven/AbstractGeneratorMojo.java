@@ -1,6 +1,8 @@
 package io.protostuff.compiler.maven;
 
 import com.google.common.base.Throwables;
+import io.protostuff.compiler.parser.ArchiveFileReader;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -13,6 +15,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.apache.maven.plugins.annotations.LifecyclePhase.GENERATE_TEST_SOURCES;
@@ -40,6 +43,34 @@ public abstract class AbstractGeneratorMojo extends AbstractMojo {
     @Parameter
     protected List<String> excludes;
 
+    /**
+     * Number of threads used to load proto files.
+     */
+    @Parameter(defaultValue = "1")
+    protected int parallelism;
+
+    /**
+     * Directory for module fingerprints. When it is set, code generation is
+     * skipped if source files were not changed since previous build.
+     */
+    @Parameter
+    protected File cacheDirectory;
+
+    /**
+     * Index all proto files under source directory once instead of checking
+     * file system for each imported file.
+     */
+    @Parameter(defaultValue = "false")
+    protected boolean indexSource;
+
+    /**
+     * Read proto files of project dependencies directly from their jar files
+     * instead of plugin class loader. Opened jars are shared by all plugin
+     * executions in the same build.
+     */
+    @Parameter(defaultValue = "false")
+    protected boolean readDependencyArchives;
+
     protected Path getSourcePath() {
         if (source != null) {
             return source.toPath();
@@ -65,6 +96,38 @@ public abstract class AbstractGeneratorMojo extends AbstractMojo {
         StaticLoggerBinder.getSingleton().setMavenLog(this.getLog());
     }
 
+    /**
+     * Returns include paths for given source directory: the directory itself
+     * and, if {@link #readDependencyArchives} is enabled, jar files of
+     * project dependencies.
+     */
+    protected List<Path> getIncludePaths(Path sourcePath) throws MojoExecutionException {
+        List<Path> includePaths = new ArrayList<>();
+        includePaths.add(sourcePath);
+        if (readDependencyArchives) {
+            List<String> classpathElements;
+            try {
+                classpathElements = project.getRuntimeClasspathElements();
+            } catch (DependencyResolutionRequiredException e) {
+                throw new MojoExecutionException("Could not resolve project dependencies", e);
+            }
+            for (String element : classpathElements) {
+                Path path = Paths.get(element);
+                if (ArchiveFileReader.isArchive(path)) {
+                    includePaths.add(path);
+                }
+            }
+        }
+        return includePaths;
+    }
+
+    protected Path getCacheDirectory() {
+        if (cacheDirectory != null) {
+            return cacheDirectory.toPath();
+        }
+        return null;
+    }
+
     protected String normalizeProtoPath(String protoFilePath) {
         String normalizedPath;
         if (File.separatorChar == '\\') {
@@ -25,7 +25,6 @@ import java.util.List;
 import io.protostuff.compiler.model.ModuleConfiguration;
 import io.protostuff.generator.ProtostuffCompiler;
 
-import static java.util.Collections.singletonList;
 import static org.apache.maven.plugins.annotations.ResolutionScope.COMPILE_PLUS_RUNTIME;
 
 /**
@@ -52,9 +51,12 @@ public class HtmlGeneratorMojo extends AbstractGeneratorMojo {
         final Path sourcePath = getSourcePath();
         ImmutableModuleConfiguration.Builder builder = ImmutableModuleConfiguration.builder()
                 .name("html")
-                .includePaths(singletonList(sourcePath))
+                .includePaths(getIncludePaths(sourcePath))
                 .generator(CompilerModule.HTML_COMPILER)
-                .output(target.getAbsolutePath());
+                .output(target.getAbsolutePath())
+                .parallelism(parallelism)
+                .cacheDirectory(getCacheDirectory())
+                .indexIncludePaths(indexSource);
         if (pages != null) {
             builder.putOptions(HtmlGenerator.PAGES, pages);
         }
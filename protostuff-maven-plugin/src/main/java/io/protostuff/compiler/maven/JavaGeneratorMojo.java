@@ -16,7 +16,6 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 
-import static java.util.Collections.singletonList;
 import static org.apache.maven.plugins.annotations.LifecyclePhase.GENERATE_TEST_SOURCES;
 import static org.apache.maven.plugins.annotations.ResolutionScope.COMPILE_PLUS_RUNTIME;
 
@@ -35,6 +34,20 @@ public class JavaGeneratorMojo extends AbstractGeneratorMojo {
     @Parameter
     private File target;
 
+    /**
+     * Store repeated numeric, bool and enum fields in primitive arrays
+     * instead of lists of boxed values.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean primitiveRepeatedFields;
+
+    /**
+     * Generate messages that can be cleared and decoded again, reusing
+     * their lists, maps and nested messages.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean mutableMessages;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         super.execute();
@@ -44,9 +57,18 @@ public class JavaGeneratorMojo extends AbstractGeneratorMojo {
         String output = calculateOutput();
         ImmutableModuleConfiguration.Builder builder = ImmutableModuleConfiguration.builder()
                 .name("java")
-                .includePaths(singletonList(sourcePath))
+                .includePaths(getIncludePaths(sourcePath))
                 .generator("java")
-                .output(output);
+                .output(output)
+                .parallelism(parallelism)
+                .cacheDirectory(getCacheDirectory())
+                .indexIncludePaths(indexSource);
+        if (primitiveRepeatedFields) {
+            builder.putOptions(CompilerModule.PRIMITIVE_REPEATED_FIELDS_OPTION, true);
+        }
+        if (mutableMessages) {
+            builder.putOptions(CompilerModule.MUTABLE_MESSAGES_OPTION, true);
+        }
         PathMatcher protoMatcher = FileSystems.getDefault().getPathMatcher("glob:**/*.proto");
         try {
             Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
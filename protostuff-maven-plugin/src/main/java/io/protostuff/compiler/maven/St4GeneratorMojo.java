@@ -19,7 +19,6 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
-import static java.util.Collections.singletonList;
 import static org.apache.maven.plugins.annotations.LifecyclePhase.GENERATE_TEST_SOURCES;
 import static org.apache.maven.plugins.annotations.ResolutionScope.COMPILE_PLUS_RUNTIME;
 
@@ -64,11 +63,14 @@ public class St4GeneratorMojo extends AbstractGeneratorMojo {
         }
         ImmutableModuleConfiguration.Builder builder = ImmutableModuleConfiguration.builder()
                 .name("java")
-                .includePaths(singletonList(sourcePath))
+                .includePaths(getIncludePaths(sourcePath))
                 .generator(CompilerModule.ST4_COMPILER)
                 .putOptions(CompilerModule.TEMPLATES_OPTION, allTemplates)
                 .putOptions(CompilerModule.EXTENSIONS_OPTION, extensions)
-                .output(output);
+                .output(output)
+                .parallelism(parallelism)
+                .cacheDirectory(getCacheDirectory())
+                .indexIncludePaths(indexSource);
         PathMatcher protoMatcher = FileSystems.getDefault().getPathMatcher("glob:**/*.proto");
         try {
             Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
@@ -6,6 +6,8 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 /**
  * @author Kostiantyn Shchepanovskyi
  */
@@ -51,4 +53,35 @@ public interface ModuleConfiguration {
      */
     Map<String, Object> getOptions();
 
+    /**
+     * Directory for module fingerprints. When it is set, compilation is skipped
+     * if all source files (including imports) and module configuration are the
+     * same as during previous compilation.
+     */
+    @Nullable
+    Path getCacheDirectory();
+
+    /**
+     * Number of threads used to load proto files. Default value is 1 -
+     * all files are loaded sequentially in a caller thread. When it is
+     * greater than 1, imported files are also read in background threads
+     * while files that import them are parsed, and output files are
+     * generated concurrently using the same number of threads.
+     */
+    @Value.Default
+    default int getParallelism() {
+        return 1;
+    }
+
+    /**
+     * Use an in-memory index of all proto files under include paths for
+     * file lookups. Index is built once per compilation by walking include
+     * paths, so it saves many filesystem calls when there are many include
+     * paths and imports (especially on network filesystems).
+     */
+    @Value.Default
+    default boolean getIndexIncludePaths() {
+        return false;
+    }
+
 }
@@ -0,0 +1,264 @@
+package io.protostuff.compiler.parser;
+
+import com.google.common.io.ByteStreams;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CharStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nullable;
+
+/**
+ * Load file from jar or zip archives, e.g. from project dependencies.
+ *
+ * Opened archives and indexes of their proto files are shared by all reader
+ * instances, so archives that are used by many compilations (for example, by
+ * all modules and mojo executions of the same Maven build) are opened and
+ * scanned only once. Archives are reference-counted, readers must be closed
+ * when their compilation ends. An archive that is not used by any reader
+ * stays open for next compilations; it is closed when it was not used for
+ * ten minutes, or when more than a hundred archives are not used.
+ *
+ * A reader that is created after an archive file was changed opens a new
+ * copy of the archive; readers that still use the old copy keep reading from
+ * it until they are closed.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class ArchiveFileReader implements FileReader, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveFileReader.class);
+
+    private static final String PROTO_EXTENSION = ".proto";
+
+    private static final int MAX_IDLE_ARCHIVES = 100;
+    private static final long IDLE_TIMEOUT_MINUTES = 10;
+
+    /**
+     * Latest opened copy of every archive. Guarded by itself, as well as
+     * {@link #IDLE_ARCHIVES} and reference counts of archives.
+     */
+    private static final Map<Path, Archive> ARCHIVES = new HashMap<>();
+
+    /**
+     * Archives that are not used by any reader, in the order they were released.
+     */
+    private static final Set<Archive> IDLE_ARCHIVES = new LinkedHashSet<>();
+
+    private final List<Path> archivePaths;
+    private volatile List<Archive> archives;
+    private boolean closed;
+
+    public ArchiveFileReader(Path... archivePaths) {
+        this(Arrays.asList(archivePaths));
+    }
+
+    public ArchiveFileReader(List<Path> archivePaths) {
+        this.archivePaths = new ArrayList<>(archivePaths);
+    }
+
+    /**
+     * Check if given file can be read by this reader.
+     */
+    public static boolean isArchive(Path path) {
+        String fileName = String.valueOf(path.getFileName());
+        return (fileName.endsWith(".jar") || fileName.endsWith(".zip"))
+                && Files.isRegularFile(path);
+    }
+
+    @Nullable
+    @Override
+    public CharStream read(String name) {
+        for (Archive archive : getArchives()) {
+            ZipEntry entry = archive.entries.get(name);
+            if (entry != null) {
+                try (InputStream stream = archive.zipFile.getInputStream(entry)) {
+                    byte[] bytes = ByteStreams.toByteArray(stream);
+                    CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes));
+                    return new ANTLRInputStream(chars.array(), chars.limit());
+                } catch (IOException e) {
+                    LOGGER.warn("Could not read {} from {}", name, archive.path, e);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Releases archives of this reader. Files can not be read after reader
+     * is closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        List<Archive> result = archives;
+        archives = Collections.emptyList();
+        if (result != null) {
+            result.forEach(ArchiveFileReader::release);
+        }
+    }
+
+    /**
+     * Returns archives of this reader. Archives are checked for modification
+     * once per reader instance, when they are used for the first time.
+     */
+    private List<Archive> getArchives() {
+        List<Archive> result = archives;
+        if (result == null) {
+            synchronized (this) {
+                result = archives;
+                if (result == null) {
+                    result = new ArrayList<>();
+                    if (!closed) {
+                        for (Path path : archivePaths) {
+                            Archive archive = acquire(path);
+                            if (archive != null) {
+                                result.add(archive);
+                            }
+                        }
+                    }
+                    archives = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    private static Archive acquire(Path archivePath) {
+        Path path = archivePath.toAbsolutePath().normalize();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            synchronized (ARCHIVES) {
+                closeIdleArchives(System.nanoTime());
+                Archive archive = ARCHIVES.get(path);
+                if (archive != null && !archive.isSame(attributes)) {
+                    // previous copy is closed when its last reader is closed
+                    ARCHIVES.remove(path);
+                    if (IDLE_ARCHIVES.remove(archive)) {
+                        archive.close();
+                    }
+                    archive = null;
+                }
+                if (archive == null) {
+                    archive = Archive.open(path, attributes);
+                    ARCHIVES.put(path, archive);
+                }
+                IDLE_ARCHIVES.remove(archive);
+                archive.references++;
+                return archive;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not open {}", path, e);
+            return null;
+        }
+    }
+
+    private static void release(Archive archive) {
+        synchronized (ARCHIVES) {
+            archive.references--;
+            if (archive.references > 0) {
+                return;
+            }
+            if (ARCHIVES.get(archive.path) == archive) {
+                archive.releaseTime = System.nanoTime();
+                IDLE_ARCHIVES.add(archive);
+                closeIdleArchives(archive.releaseTime);
+                return;
+            }
+        }
+        archive.close();
+    }
+
+    /**
+     * Close archives that were not used for too long, and the least recently
+     * used archives when there are too many of them.
+     */
+    private static void closeIdleArchives(long now) {
+        long timeout = TimeUnit.MINUTES.toNanos(IDLE_TIMEOUT_MINUTES);
+        Iterator<Archive> iterator = IDLE_ARCHIVES.iterator();
+        while (iterator.hasNext()) {
+            Archive archive = iterator.next();
+            if (IDLE_ARCHIVES.size() <= MAX_IDLE_ARCHIVES && now - archive.releaseTime < timeout) {
+                return;
+            }
+            iterator.remove();
+            ARCHIVES.remove(archive.path, archive);
+            archive.close();
+        }
+    }
+
+    private static final class Archive {
+
+        private final Path path;
+        private final ZipFile zipFile;
+        private final Map<String, ZipEntry> entries;
+        private final long size;
+        private final FileTime lastModifiedTime;
+        private int references;
+        private long releaseTime;
+
+        private Archive(Path path, ZipFile zipFile, Map<String, ZipEntry> entries,
+                        BasicFileAttributes attributes) {
+            this.path = path;
+            this.zipFile = zipFile;
+            this.entries = entries;
+            this.size = attributes.size();
+            this.lastModifiedTime = attributes.lastModifiedTime();
+        }
+
+        static Archive open(Path path, BasicFileAttributes attributes) throws IOException {
+            ZipFile zipFile = new ZipFile(path.toFile());
+            Map<String, ZipEntry> entries = new HashMap<>();
+            Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+            while (enumeration.hasMoreElements()) {
+                ZipEntry entry = enumeration.nextElement();
+                if (!entry.isDirectory() && entry.getName().endsWith(PROTO_EXTENSION)) {
+                    entries.put(entry.getName(), entry);
+                }
+            }
+            LOGGER.debug("Opened {}: {} proto files", path, entries.size());
+            return new Archive(path, zipFile, entries, attributes);
+        }
+
+        boolean isSame(BasicFileAttributes attributes) {
+            return size == attributes.size()
+                    && lastModifiedTime.equals(attributes.lastModifiedTime());
+        }
+
+        void close() {
+            try {
+                zipFile.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close {}", path, e);
+            }
+        }
+    }
+}
@@ -1,39 +1,264 @@
 package io.protostuff.compiler.parser;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CharStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
 
 /**
+ * Load file from classpath, using context class loader of current thread.
+ *
+ * <p>Reader uses an index of all proto files available on classpath of the
+ * class loader. Classpath is collected from URL class loaders in the parent
+ * chain, up to the application class loader, which contributes entries of
+ * {@code java.class.path} (it is not a URL class loader since Java 9). JDK
+ * runtime class loaders above it are not indexed. Class loaders that are
+ * neither of those can not be indexed, and files are always looked up
+ * through them. Index is built once per class loader by scanning jar
+ * directories and classpath folders, and is rebuilt when classpath of the
+ * class loader is changed (for example, when Maven adds dependencies of
+ * another module to a reused plugin class realm). Proto files that are not in the index
+ * are reported as missing without asking class loader. Names of missing
+ * files are also remembered by each reader instance.
+ *
  * @author Kostiantyn Shchepanovskyi
  */
 public class ClasspathFileReader implements FileReader {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ClasspathFileReader.class);
 
+    private static final String PROTO_EXTENSION = ".proto";
+
+    private static final ClasspathIndex NOT_INDEXED = new ClasspathIndex(null, null);
+
+    private static final Cache<ClassLoader, ClasspathIndex> INDEXES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * Last parsed value of {@code java.class.path} and its urls.
+     */
+    private static volatile Map.Entry<String, List<URL>> systemClasspath;
+
+    private final Set<String> missingFiles = ConcurrentHashMap.newKeySet();
+
     @Nullable
     @Override
     public CharStream read(String name) {
+        if (missingFiles.contains(name)) {
+            return null;
+        }
         try {
-            String classpath = System.getProperty("java.class.path");
-            LOGGER.trace("Reading {} from classpath={}", name, classpath);
             ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
             if (classLoader == null) {
                 throw new IllegalStateException("Can not obtain classloader instance from current thread");
             }
+            LOGGER.trace("Reading {} from classloader={}", name, classLoader);
+            if (name.endsWith(PROTO_EXTENSION)) {
+                ClasspathIndex index = getIndex(classLoader);
+                if (!index.contains(name)) {
+                    missingFiles.add(name);
+                    return null;
+                }
+            }
             InputStream resource = classLoader.getResourceAsStream(name);
             if (resource != null) {
-                return new ANTLRInputStream(resource);
+                try (InputStream stream = resource) {
+                    return new ANTLRInputStream(stream);
+                }
             }
+            missingFiles.add(name);
         } catch (Exception e) {
             LOGGER.error("Could not read {}", name, e);
         }
         return null;
     }
 
+    /**
+     * Returns index of proto files for given class loader. Index is rebuilt
+     * when class loader urls are not the same as urls of the cached index.
+     */
+    private static ClasspathIndex getIndex(ClassLoader classLoader) {
+        List<URL> urls = getUrls(classLoader);
+        if (urls == null) {
+            LOGGER.debug("Could not index {}", classLoader);
+            return NOT_INDEXED;
+        }
+        ClasspathIndex index = INDEXES.getIfPresent(classLoader);
+        if (index == null || !urls.equals(index.urls)) {
+            // concurrent readers may build the same index twice, last one is cached
+            index = ClasspathIndex.build(urls);
+            INDEXES.put(classLoader, index);
+        }
+        return index;
+    }
+
+    /**
+     * Collect classpath urls of given class loader and its parents, or return
+     * null if one of them is not a URL class loader or the application class loader.
+     */
+    @Nullable
+    private static List<URL> getUrls(ClassLoader classLoader) {
+        ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+        List<URL> urls = new ArrayList<>();
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            if (loader == systemClassLoader) {
+                urls.addAll(getSystemClasspath());
+                return urls;
+            }
+            if (!(loader instanceof URLClassLoader)) {
+                return null;
+            }
+            urls.addAll(Arrays.asList(((URLClassLoader) loader).getURLs()));
+        }
+        return urls;
+    }
+
+    private static List<URL> getSystemClasspath() {
+        String classPath = System.getProperty("java.class.path", "");
+        Map.Entry<String, List<URL>> cached = systemClasspath;
+        if (cached != null && cached.getKey().equals(classPath)) {
+            return cached.getValue();
+        }
+        List<URL> urls = new ArrayList<>();
+        for (String element : classPath.split(Pattern.quote(File.pathSeparator))) {
+            try {
+                urls.add(Paths.get(element.isEmpty() ? "." : element).toUri().toURL());
+            } catch (InvalidPathException | MalformedURLException e) {
+                LOGGER.debug("Could not index {}", element, e);
+            }
+        }
+        systemClasspath = new AbstractMap.SimpleImmutableEntry<>(classPath, urls);
+        return urls;
+    }
+
+    private static final class ClasspathIndex {
+
+        private final List<URL> urls;
+        private final Set<String> files;
+
+        private ClasspathIndex(@Nullable List<URL> urls, @Nullable Set<String> files) {
+            this.urls = urls;
+            this.files = files;
+        }
+
+        /**
+         * Returns false if there is no such proto file on the classpath,
+         * true if file exists or index is incomplete.
+         */
+        boolean contains(String name) {
+            return files == null || files.contains(name);
+        }
+
+        static ClasspathIndex build(List<URL> urls) {
+            Set<String> files = new HashSet<>();
+            Set<Path> visited = new HashSet<>();
+            Deque<URL> queue = new ArrayDeque<>(urls);
+            try {
+                while (!queue.isEmpty()) {
+                    URL url = queue.poll();
+                    if (!"file".equals(url.getProtocol())) {
+                        LOGGER.debug("Could not index {}", url);
+                        return new ClasspathIndex(urls, null);
+                    }
+                    Path path = Paths.get(url.toURI()).toAbsolutePath().normalize();
+                    if (!visited.add(path)) {
+                        continue;
+                    }
+                    if (Files.isDirectory(path)) {
+                        indexDirectory(path, files);
+                    } else if (Files.isRegularFile(path)) {
+                        indexJar(path, url, files, queue);
+                    }
+                }
+            } catch (IOException | URISyntaxException e) {
+                LOGGER.debug("Could not index classpath", e);
+                return new ClasspathIndex(urls, null);
+            }
+            LOGGER.debug("Indexed {} proto files on classpath", files.size());
+            return new ClasspathIndex(urls, Collections.unmodifiableSet(files));
+        }
+
+        private static void indexDirectory(Path directory, Set<String> files) throws IOException {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (file.getFileName().toString().endsWith(PROTO_EXTENSION)) {
+                        files.add(directory.relativize(file).toString()
+                                .replace(file.getFileSystem().getSeparator(), "/"));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        /**
+         * Add proto files of a jar to the index, and jars referenced from its
+         * manifest {@code Class-Path} attribute to the queue.
+         */
+        private static void indexJar(Path path, URL url, Set<String> files, Deque<URL> queue)
+                throws IOException, URISyntaxException {
+            try (JarFile jar = new JarFile(path.toFile())) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().endsWith(PROTO_EXTENSION)) {
+                        files.add(entry.getName());
+                    }
+                }
+                Manifest manifest = jar.getManifest();
+                if (manifest == null) {
+                    return;
+                }
+                String classPath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+                if (classPath == null) {
+                    return;
+                }
+                URI base = url.toURI();
+                for (String element : classPath.trim().split("\\s+")) {
+                    if (!element.isEmpty()) {
+                        queue.add(base.resolve(element).toURL());
+                    }
+                }
+            }
+        }
+    }
+
 }
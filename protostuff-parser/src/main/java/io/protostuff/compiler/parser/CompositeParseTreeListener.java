@@ -1,42 +1,76 @@
 package io.protostuff.compiler.parser;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.collect.ImmutableList;
-import com.google.common.reflect.AbstractInvocationHandler;
-import com.google.common.reflect.Reflection;
 
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
 
-import java.lang.reflect.Method;
-
-import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Arrays;
 
 /**
+ * Parse tree listener that forwards all events to the list of delegates.
+ *
+ * Rule-specific callbacks are dispatched by the rule context itself
+ * ({@link ParserRuleContext#enterRule(ParseTreeListener)}), so delegates are
+ * invoked directly, without reflection. Order of events is the same as if each
+ * delegate would be notified by the walker: {@code enterEveryRule()} of all
+ * delegates first, then rule-specific {@code enter*()} methods, and in reverse
+ * order for exit events.
+ *
  * @author Kostiantyn Shchepanovskyi
  */
-public class CompositeParseTreeListener {
-
-    @SafeVarargs
-    public static <T extends ParseTreeListener> T create(Class<T> type, T... delegates) {
-        ImmutableList<T> listeners = ImmutableList.copyOf(delegates);
-        return Reflection.newProxy(type, new AbstractInvocationHandler() {
-
-            @Override
-            @ParametersAreNonnullByDefault
-            protected Object handleInvocation(Object proxy, Method method, Object[] args) throws Throwable {
-                for (T listener : listeners) {
-                    method.invoke(listener, args);
-                }
-                return null;
-            }
-
-            @Override
-            public String toString() {
-                return MoreObjects.toStringHelper("CompositeParseTreeListener")
-                        .add("listeners", listeners)
-                        .toString();
-            }
-        });
+public final class CompositeParseTreeListener implements ParseTreeListener {
+
+    private final ParseTreeListener[] listeners;
+
+    private CompositeParseTreeListener(ParseTreeListener[] listeners) {
+        this.listeners = listeners;
+    }
+
+    public static ParseTreeListener create(ParseTreeListener... delegates) {
+        return new CompositeParseTreeListener(delegates.clone());
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        for (ParseTreeListener listener : listeners) {
+            listener.visitTerminal(node);
+        }
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        for (ParseTreeListener listener : listeners) {
+            listener.visitErrorNode(node);
+        }
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        for (ParseTreeListener listener : listeners) {
+            listener.enterEveryRule(ctx);
+        }
+        for (ParseTreeListener listener : listeners) {
+            ctx.enterRule(listener);
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        for (ParseTreeListener listener : listeners) {
+            ctx.exitRule(listener);
+        }
+        for (ParseTreeListener listener : listeners) {
+            listener.exitEveryRule(ctx);
+        }
+    }
 
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper("CompositeParseTreeListener")
+                .add("listeners", Arrays.asList(listeners))
+                .toString();
     }
 }
@@ -4,12 +4,24 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 
 /**
+ * Provides context of built-in {@code descriptor.proto}.
+ *
+ * Descriptor proto is loaded only once per class loader and shared between
+ * all injectors: it is never changed after post-processing, and parsing it
+ * is a noticeable part of the start-up time.
+ *
  * @author Kostiantyn Shchepanovskyi
  */
 public class DefaultDescriptorProtoProvider implements Provider<ProtoContext> {
 
     public static final String DESCRIPTOR_PROTO = "descriptor.proto";
 
+    private static final String DESCRIPTOR_PROTO_RESOURCE = "google/protobuf/__descriptor.proto";
+
+    private static final Object LOCK = new Object();
+
+    private static volatile ProtoContext descriptorProto;
+
     private final Importer importer;
 
     @Inject
@@ -19,6 +31,16 @@ public class DefaultDescriptorProtoProvider implements Provider<ProtoContext> {
 
     @Override
     public ProtoContext get() {
-        return importer.importFile(new ClasspathFileReader(), "google/protobuf/__descriptor.proto");
+        ProtoContext result = descriptorProto;
+        if (result == null) {
+            synchronized (LOCK) {
+                result = descriptorProto;
+                if (result == null) {
+                    result = importer.importFile(new ClasspathFileReader(), DESCRIPTOR_PROTO_RESOURCE);
+                    descriptorProto = result;
+                }
+            }
+        }
+        return result;
     }
 }
@@ -1,13 +1,19 @@
 package io.protostuff.compiler.parser;
 
 import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import java.util.Set;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 /**
  * @author Kostiantyn Shchepanovskyi
@@ -16,11 +22,16 @@ public class FileDescriptorLoaderImpl implements FileDescriptorLoader {
 
     private final ANTLRErrorListener errorListener;
 
+    private final Provider<ANTLRErrorStrategy> errorStrategyProvider;
+
     private final Set<ProtoContextPostProcessor> postProcessors;
 
     @Inject
-    public FileDescriptorLoaderImpl(ANTLRErrorListener errorListener, Set<ProtoContextPostProcessor> postProcessors) {
+    public FileDescriptorLoaderImpl(ANTLRErrorListener errorListener,
+                                    Provider<ANTLRErrorStrategy> errorStrategyProvider,
+                                    Set<ProtoContextPostProcessor> postProcessors) {
         this.errorListener = errorListener;
+        this.errorStrategyProvider = errorStrategyProvider;
         this.postProcessors = postProcessors;
     }
 
@@ -43,17 +54,14 @@ public class FileDescriptorLoaderImpl implements FileDescriptorLoader {
         lexer.addErrorListener(errorListener);
         CommonTokenStream tokenStream = new CommonTokenStream(lexer);
         ProtoParser parser = new ProtoParser(tokenStream);
-        parser.removeErrorListeners();
-        parser.addErrorListener(errorListener);
-
-        ProtoParser.ProtoContext tree = parser.proto();
+        ProtoParser.ProtoContext tree = parse(parser);
         int numberOfSyntaxErrors = parser.getNumberOfSyntaxErrors();
         if (numberOfSyntaxErrors > 0) {
             String format = "Could not parse %s: %d syntax errors found";
             throw new ParserException(format, filename, numberOfSyntaxErrors);
         }
         ProtoContext context = new ProtoContext(filename);
-        ProtoParserListener composite = CompositeParseTreeListener.create(ProtoParserListener.class,
+        ParseTreeListener composite = CompositeParseTreeListener.create(
                 new ProtoParseListener(tokenStream, context),
                 new MessageParseListener(tokenStream, context),
                 new EnumParseListener(tokenStream, context),
@@ -64,4 +72,25 @@ public class FileDescriptorLoaderImpl implements FileDescriptorLoader {
         return context;
     }
 
+    /**
+     * Two-stage parsing: first try faster SLL prediction mode that bails out on
+     * first error. It is enough for almost all valid inputs. Only if it fails,
+     * parse input again using full LL prediction mode and report syntax errors.
+     */
+    private ProtoParser.ProtoContext parse(ProtoParser parser) {
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(errorStrategyProvider.get());
+        try {
+            return parser.proto();
+        } catch (ParseCancellationException e) {
+            // rewinds token stream to the beginning
+            parser.reset();
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.addErrorListener(errorListener);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            return parser.proto();
+        }
+    }
+
 }
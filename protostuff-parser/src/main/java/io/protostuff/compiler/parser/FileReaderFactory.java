@@ -9,4 +9,17 @@ import java.util.List;
 public interface FileReaderFactory {
 
     FileReader create(List<Path> includePathList);
+
+    /**
+     * @param indexed if true, local files are looked up using an index of
+     *                proto files under include paths instead of checking
+     *                each include path for every file
+     */
+    FileReader create(List<Path> includePathList, boolean indexed);
+
+    /**
+     * Create reader that looks for files in given source reader first (for
+     * example, {@link InMemoryFileReader}), then in include paths.
+     */
+    FileReader create(FileReader sourceReader, List<Path> includePathList, boolean indexed);
 }
@@ -0,0 +1,149 @@
+package io.protostuff.compiler.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lightweight scanner that finds names of imported files in proto file
+ * source without parsing it.
+ *
+ * Scanner skips comments and string literals, and stops on first message,
+ * enum, service or extension definition - imports are expected before them.
+ * Result is only a hint (it is used for prefetching), proto file is still
+ * parsed and validated by {@link FileDescriptorLoader}.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+final class ImportScanner {
+
+    private final CharStream stream;
+    private final int size;
+    private int position;
+
+    private ImportScanner(CharStream stream) {
+        this.stream = stream;
+        this.size = stream.size();
+    }
+
+    /**
+     * Returns names of files imported by given source. Stream position is
+     * not changed.
+     */
+    static List<String> scan(CharStream stream) {
+        return new ImportScanner(stream).scan();
+    }
+
+    private List<String> scan() {
+        List<String> result = new ArrayList<>();
+        boolean importStatement = false;
+        while (skipWhitespaceAndComments()) {
+            int c = peek(0);
+            if (c == '"' || c == '\'') {
+                String value = readString();
+                if (importStatement && value != null) {
+                    result.add(value);
+                }
+                importStatement = false;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                String identifier = readIdentifier();
+                switch (identifier) {
+                    case "import":
+                        importStatement = true;
+                        break;
+                    case "public":
+                    case "weak":
+                        // import modifiers
+                        break;
+                    case "message":
+                    case "enum":
+                    case "service":
+                    case "extend":
+                        return result;
+                    default:
+                        importStatement = false;
+                }
+            } else {
+                importStatement = false;
+                position++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Skip whitespace and comments, return false if end of stream is reached.
+     */
+    private boolean skipWhitespaceAndComments() {
+        while (position < size) {
+            int c = peek(0);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (c == '/' && peek(1) == '/') {
+                while (position < size && peek(0) != '\n') {
+                    position++;
+                }
+            } else if (c == '/' && peek(1) == '*') {
+                position += 2;
+                while (position < size && !(peek(0) == '*' && peek(1) == '/')) {
+                    position++;
+                }
+                position += 2;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String readIdentifier() {
+        int start = position;
+        while (position < size && Character.isJavaIdentifierPart(peek(0))) {
+            position++;
+        }
+        return text(start, position);
+    }
+
+    /**
+     * Read string literal, return its value without quotes, or null if
+     * string is not terminated or contains escape sequences.
+     */
+    private String readString() {
+        int quote = peek(0);
+        int start = ++position;
+        boolean escaped = false;
+        while (position < size) {
+            int c = peek(0);
+            if (c == '\\') {
+                escaped = true;
+                position++;
+            } else if (c == quote) {
+                String value = text(start, position);
+                position++;
+                return escaped ? null : value;
+            } else if (c == '\n') {
+                return null;
+            }
+            position++;
+        }
+        return null;
+    }
+
+    private int peek(int offset) {
+        int index = position + offset;
+        if (index >= size) {
+            return IntStream.EOF;
+        }
+        return stream.LA(index - stream.index() + 1);
+    }
+
+    private String text(int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            sb.append((char) stream.LA(i - stream.index() + 1));
+        }
+        return sb.toString();
+    }
+}
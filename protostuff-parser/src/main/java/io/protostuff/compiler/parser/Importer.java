@@ -1,9 +1,35 @@
 package io.protostuff.compiler.parser;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
 /**
  * @author Kostiantyn Shchepanovskyi
  */
 public interface Importer {
 
     ProtoContext importFile(FileReader fileReader, String fileName);
+
+    /**
+     * Import given files using executor, so independent files can be loaded
+     * concurrently. Returns contexts in the same order as file names.
+     */
+    List<ProtoContext> importFiles(FileReader fileReader, List<String> fileNames, Executor executor);
+
+    /**
+     * Remove given files and all files that import them, directly or transitively,
+     * from the cache, so they are parsed again on next import.
+     * Should not be called concurrently with imports.
+     *
+     * @return names of all removed files
+     */
+    Set<String> invalidate(Collection<String> fileNames);
+
+    /**
+     * Returns true if given file is already loaded or is being loaded,
+     * so its next import does not read it again.
+     */
+    boolean isImported(String fileName);
 }
@@ -1,12 +1,32 @@
 package io.protostuff.compiler.parser;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 /**
+ * Thread-safe importer. Every file is loaded only once: concurrent requests
+ * for a file that is being loaded wait for the result of the first request.
+ *
+ * Imports of a file are loaded by the same thread that loads the file itself,
+ * so independent files (and their import subgraphs) can be loaded in parallel
+ * using {@link #importFiles(FileReader, List, Executor)}.
+ *
  * @author Kostiantyn Shchepanovskyi
  */
 @Singleton
@@ -14,7 +34,20 @@ public class ImporterImpl implements Importer {
 
     private final FileDescriptorLoader loader;
 
-    private Map<String, ProtoContext> cachedImports = new HashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<ProtoContext>> cachedImports = new ConcurrentHashMap<>();
+
+    /**
+     * Threads that currently load a file, by file name.
+     */
+    private final ConcurrentMap<String, Thread> loadingThreads = new ConcurrentHashMap<>();
+
+    /**
+     * Files that threads are waiting for, by waiting thread.
+     * Used together with {@link #loadingThreads} to detect import cycles.
+     */
+    private final ConcurrentMap<Thread, String> awaitedFiles = new ConcurrentHashMap<>();
+
+    private final Object cycleLock = new Object();
 
     @Inject
     public ImporterImpl(FileDescriptorLoader loader) {
@@ -23,16 +56,130 @@ public class ImporterImpl implements Importer {
 
     @Override
     public ProtoContext importFile(FileReader reader, String fileName) {
-        ProtoContext cachedInstance = cachedImports.get(fileName);
+        CompletableFuture<ProtoContext> future = new CompletableFuture<>();
+        CompletableFuture<ProtoContext> cachedInstance = cachedImports.putIfAbsent(fileName, future);
         if (cachedInstance != null) {
-            if (cachedInstance.isInitialized()) {
-                return cachedInstance;
+            return await(fileName, cachedInstance);
+        }
+        loadingThreads.put(fileName, Thread.currentThread());
+        try {
+            ProtoContext context = loader.load(reader, fileName);
+            future.complete(context);
+            return context;
+        } catch (RuntimeException e) {
+            // failed imports are not cached
+            cachedImports.remove(fileName, future);
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingThreads.remove(fileName);
+        }
+    }
+
+    @Override
+    public List<ProtoContext> importFiles(FileReader reader, List<String> fileNames, Executor executor) {
+        List<CompletableFuture<ProtoContext>> futures = new ArrayList<>();
+        for (String fileName : fileNames) {
+            futures.add(CompletableFuture.supplyAsync(() -> importFile(reader, fileName), executor));
+        }
+        List<ProtoContext> result = new ArrayList<>();
+        for (CompletableFuture<ProtoContext> future : futures) {
+            result.add(join(future));
+        }
+        return result;
+    }
+
+    @Override
+    public Set<String> invalidate(Collection<String> fileNames) {
+        Map<String, Set<String>> dependents = getDependents();
+        Set<String> result = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>(fileNames);
+        while (!queue.isEmpty()) {
+            String fileName = queue.poll();
+            if (result.add(fileName)) {
+                cachedImports.remove(fileName);
+                queue.addAll(dependents.getOrDefault(fileName, Collections.emptySet()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isImported(String fileName) {
+        return cachedImports.containsKey(fileName);
+    }
+
+    /**
+     * Build reverse import graph: for each loaded file, a set of loaded files
+     * that import it.
+     */
+    private Map<String, Set<String>> getDependents() {
+        Map<String, Set<String>> dependents = new HashMap<>();
+        for (CompletableFuture<ProtoContext> future : cachedImports.values()) {
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                continue;
+            }
+            ProtoContext context = future.join();
+            String fileName = context.getProto().getFilename();
+            List<ProtoContext> importedContexts = new ArrayList<>();
+            importedContexts.addAll(context.getImports());
+            importedContexts.addAll(context.getPublicImports());
+            for (ProtoContext importedContext : importedContexts) {
+                String importedFileName = importedContext.getProto().getFilename();
+                dependents.computeIfAbsent(importedFileName, key -> new HashSet<>()).add(fileName);
+            }
+        }
+        return dependents;
+    }
+
+    private ProtoContext await(String fileName, CompletableFuture<ProtoContext> future) {
+        if (future.isDone()) {
+            return join(future);
+        }
+        Thread currentThread = Thread.currentThread();
+        synchronized (cycleLock) {
+            checkImportCycle(fileName, currentThread);
+            awaitedFiles.put(currentThread, fileName);
+        }
+        try {
+            return join(future);
+        } finally {
+            awaitedFiles.remove(currentThread);
+        }
+    }
+
+    /**
+     * Follow the chain of threads waiting for each other, starting from the thread
+     * that loads given file. If the chain leads to the current thread, then waiting
+     * for this file would never end - imports cycle found.
+     */
+    private void checkImportCycle(String fileName, Thread currentThread) {
+        String file = fileName;
+        while (file != null) {
+            Thread thread = loadingThreads.get(file);
+            if (thread == null) {
+                return;
+            }
+            if (thread == currentThread) {
+                throw new ParserException("Can not load proto: imports cycle found");
+            }
+            file = awaitedFiles.get(thread);
+        }
+    }
+
+    private static ProtoContext join(CompletableFuture<ProtoContext> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
             }
-            throw new ParserException("Can not load proto: imports cycle found");
+            throw e;
         }
-        ProtoContext context = loader.load(reader, fileName);
-        cachedImports.put(fileName, context);
-        return context;
     }
 
 }
@@ -0,0 +1,73 @@
+package io.protostuff.compiler.parser;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CharStream;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Thread-safe reader of proto files that are kept in memory, for example
+ * sources that are received over network and compiled at runtime.
+ *
+ * Content of every file is stored as a character array that is shared by
+ * all streams returned for this file, so reading does not copy it.
+ * Files can be added, replaced and removed at any time.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class InMemoryFileReader implements FileReader {
+
+    private final ConcurrentMap<String, char[]> files = new ConcurrentHashMap<>();
+
+    public InMemoryFileReader() {
+    }
+
+    /**
+     * @param files map of file names to their content
+     */
+    public InMemoryFileReader(Map<String, ? extends CharSequence> files) {
+        files.forEach(this::put);
+    }
+
+    /**
+     * Add or replace file.
+     */
+    public void put(String name, CharSequence content) {
+        files.put(name, content.toString().toCharArray());
+    }
+
+    /**
+     * Add or replace file, using UTF-8 encoded content of given buffer.
+     * Buffer position is not changed.
+     */
+    public void put(String name, ByteBuffer content) {
+        CharBuffer chars = StandardCharsets.UTF_8.decode(content.duplicate());
+        char[] data = chars.array();
+        if (data.length != chars.limit()) {
+            data = Arrays.copyOf(data, chars.limit());
+        }
+        files.put(name, data);
+    }
+
+    public void remove(String name) {
+        files.remove(name);
+    }
+
+    @Nullable
+    @Override
+    public CharStream read(String name) {
+        char[] data = files.get(name);
+        if (data == null) {
+            return null;
+        }
+        return new ANTLRInputStream(data, data.length);
+    }
+}
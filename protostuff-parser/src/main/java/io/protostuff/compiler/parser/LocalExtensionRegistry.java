@@ -28,4 +28,11 @@ public class LocalExtensionRegistry extends AbstractExtensionRegistry {
         return extensions.get(messageName);
     }
 
+    /**
+     * Returns all registered extensions.
+     */
+    public Collection<Extension> getAllExtensions() {
+        return extensions.values();
+    }
+
 }
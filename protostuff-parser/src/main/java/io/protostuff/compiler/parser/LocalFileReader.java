@@ -6,32 +6,84 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
 /**
  * Load file from local filesystem.
  *
+ * File content is decoded directly into the character buffer of the returned
+ * stream, without intermediate byte array and string copies. Large files on
+ * the default filesystem are memory-mapped; other NIO filesystems (for
+ * example, zip filesystem) do not support mapping and are read into a heap
+ * buffer.
+ *
+ * <p>Optionally, reader can keep an index of all proto files under include
+ * paths. Index is built on first lookup by walking all include paths once,
+ * after that lookups (including lookups of missing files) are answered from
+ * memory without touching filesystem. Index must be {@linkplain #invalidate()
+ * invalidated} when files are added or removed.
+ *
  * @author Kostiantyn Shchepanovskyi
  */
 public class LocalFileReader implements FileReader {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LocalFileReader.class);
 
+    /**
+     * Files of this size or larger are memory-mapped, smaller files are read
+     * into a heap buffer as mapping is more expensive for them.
+     */
+    private static final long MAPPED_FILE_THRESHOLD = 1024 * 1024;
+
+    private static final String PROTO_EXTENSION = ".proto";
+
     private final List<Path> pathList;
+    private final boolean indexed;
+
+    /**
+     * Index of proto files under include paths: relative file name (using
+     * '/' as separator) mapped to a file in the first include path that
+     * contains it.
+     */
+    private volatile Map<String, Path> index;
 
     public LocalFileReader(Path... paths) {
-        this.pathList = checkDirectories(Arrays.asList(paths));
+        this(Arrays.asList(paths));
     }
 
     public LocalFileReader(List<Path> paths) {
+        this(paths, false);
+    }
+
+    /**
+     * @param indexed if true, use index of proto files under include paths
+     *                for lookups instead of checking each include path
+     */
+    public LocalFileReader(List<Path> paths, boolean indexed) {
         this.pathList = checkDirectories(paths);
+        this.indexed = indexed;
     }
 
     /**
@@ -55,13 +107,14 @@ public class LocalFileReader implements FileReader {
     @Nullable
     @Override
     public CharStream read(String name) {
+        if (indexed && name.endsWith(PROTO_EXTENSION)) {
+            return readIndexed(name);
+        }
         for (Path prefix : pathList) {
             Path path = prefix.resolve(name);
             if (Files.isRegularFile(path)) {
                 try {
-                    byte[] bytes = Files.readAllBytes(path);
-                    String result = new String(bytes, StandardCharsets.UTF_8);
-                    return new ANTLRInputStream(result);
+                    return readFile(path);
                 } catch (IOException e) {
                     LOGGER.debug("Could not read {}", path);
                 }
@@ -69,4 +122,104 @@ public class LocalFileReader implements FileReader {
         }
         return null;
     }
+
+    /**
+     * Drop index of proto files, it is built again on next lookup.
+     */
+    public void invalidate() {
+        index = null;
+    }
+
+    @Nullable
+    private CharStream readIndexed(String name) {
+        Path path = getIndex().get(name);
+        if (path == null) {
+            return null;
+        }
+        try {
+            return readFile(path);
+        } catch (IOException e) {
+            // file was removed or replaced after index was built
+            LOGGER.debug("Could not read {}", path);
+            invalidate();
+            return null;
+        }
+    }
+
+    private Map<String, Path> getIndex() {
+        Map<String, Path> result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = buildIndex();
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Path> buildIndex() {
+        Map<String, Path> result = new HashMap<>();
+        for (Path prefix : pathList) {
+            if (!Files.isDirectory(prefix)) {
+                continue;
+            }
+            try {
+                Files.walkFileTree(prefix, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                        new SimpleFileVisitor<Path>() {
+                            @Override
+                            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                                String fileName = file.getFileName().toString();
+                                if (attrs.isRegularFile() && fileName.endsWith(PROTO_EXTENSION)) {
+                                    String name = prefix.relativize(file).toString()
+                                            .replace(file.getFileSystem().getSeparator(), "/");
+                                    result.putIfAbsent(name, file);
+                                }
+                                return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                                // unreadable directories and symbolic link cycles are skipped
+                                LOGGER.debug("Could not index {}", file);
+                                return FileVisitResult.CONTINUE;
+                            }
+                        });
+            } catch (IOException e) {
+                LOGGER.warn("Could not index {}", prefix, e);
+            }
+        }
+        LOGGER.debug("Indexed {} proto files", result.size());
+        return result;
+    }
+
+    private CharStream readFile(Path path) throws IOException {
+        boolean defaultFileSystem = path.getFileSystem() == FileSystems.getDefault();
+        try (SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large: " + path);
+            }
+            ByteBuffer bytes;
+            if (defaultFileSystem && size >= MAPPED_FILE_THRESHOLD) {
+                bytes = ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                    // read until buffer is full or end of file is reached
+                }
+                bytes.flip();
+            }
+            // number of UTF-16 chars never exceeds number of UTF-8 bytes
+            CharBuffer chars = CharBuffer.allocate(bytes.remaining());
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+            return new ANTLRInputStream(chars.array(), chars.position());
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package io.protostuff.compiler.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+/**
+ * File reader that starts reading imported files before they are requested.
+ *
+ * When a file is read, its imports are found by {@link ImportScanner} and
+ * scheduled for reading on a given executor, so they are read from delegate
+ * reader while the file itself is parsed. If an imported file is requested
+ * before background read is started, it is read in the caller thread.
+ *
+ * Every prefetched stream is returned only once; following requests for the
+ * same file are passed to the delegate reader. Imports that are accepted by
+ * an optional filter (for example, files that importer already has) are not
+ * prefetched. Streams that were prefetched but never requested are dropped
+ * when reader is closed.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class PrefetchingFileReader implements FileReader, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchingFileReader.class);
+
+    private final FileReader delegate;
+    private final Executor executor;
+    private final Predicate<String> skipped;
+    private final ConcurrentMap<String, Prefetch> prefetches = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces prefetches that were already returned, so streams are not
+     * retained by this reader.
+     */
+    private final Prefetch consumed;
+
+    public PrefetchingFileReader(FileReader delegate, Executor executor) {
+        this(delegate, executor, name -> false);
+    }
+
+    /**
+     * @param skipped filter for imported files that should not be prefetched,
+     *                e.g. {@link Importer#isImported(String)}
+     */
+    public PrefetchingFileReader(FileReader delegate, Executor executor, Predicate<String> skipped) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.skipped = skipped;
+        this.consumed = new Prefetch(null);
+        this.consumed.claim();
+    }
+
+    @Nullable
+    @Override
+    public CharStream read(String name) {
+        Prefetch prefetch = prefetches.computeIfAbsent(name, Prefetch::new);
+        CharStream stream;
+        if (prefetch.claim()) {
+            prefetch.run();
+            stream = prefetch.get();
+        } else {
+            stream = delegate.read(name);
+        }
+        if (stream != null) {
+            for (String importedFile : ImportScanner.scan(stream)) {
+                schedule(importedFile);
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * Drop prefetched streams that were not requested. Delegate reader is
+     * not closed.
+     */
+    @Override
+    public void close() {
+        prefetches.clear();
+    }
+
+    private void schedule(String name) {
+        if (skipped.test(name)) {
+            return;
+        }
+        Prefetch prefetch = new Prefetch(name);
+        if (prefetches.putIfAbsent(name, prefetch) == null) {
+            try {
+                executor.execute(prefetch);
+            } catch (RejectedExecutionException e) {
+                // file will be read in the caller thread
+                LOGGER.trace("Could not prefetch {}", name);
+            }
+        }
+    }
+
+    private final class Prefetch implements Runnable {
+
+        private final String name;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<CharStream> result = new CompletableFuture<>();
+
+        Prefetch(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            if (started.compareAndSet(false, true)) {
+                try {
+                    result.complete(delegate.read(name));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        }
+
+        /**
+         * Returns true for the first caller, that takes result of this prefetch.
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        CharStream get() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            } finally {
+                prefetches.replace(name, this, consumed);
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +35,9 @@ public class ProtoContext {
     private boolean initialized;
     private FileReader fileReader;
 
+    private volatile Map<String, Type> importedSymbols;
+    private volatile Map<String, Type> exportedSymbols;
+
     public ProtoContext(String filename) {
         this.filename = filename;
         symbolTable = new HashMap<>();
@@ -129,33 +133,61 @@ public class ProtoContext {
         if (local != null) {
             return local;
         }
-        for (ProtoContext importedContext : publicImports) {
-            Type imported = importedContext.resolve(fullyQualifiedName);
-            if (imported != null) {
-                return imported;
+        return getImportedSymbols().get(fullyQualifiedName);
+    }
+
+    public Type resolveImport(String typeName) {
+        return getExportedSymbols().get(typeName);
+    }
+
+    /**
+     * All types that are visible in this context from its imports: types from public
+     * imports, including everything that is visible in them, and types exported by
+     * regular imports. If same name is visible from multiple imports, type from the
+     * first import wins (public imports are checked first).
+     */
+    private Map<String, Type> getImportedSymbols() {
+        Map<String, Type> result = importedSymbols;
+        if (result == null) {
+            Map<String, Type> symbols = new HashMap<>();
+            for (ProtoContext importedContext : publicImports) {
+                putAllAbsent(symbols, importedContext.symbolTable);
+                putAllAbsent(symbols, importedContext.getImportedSymbols());
             }
-        }
-        for (ProtoContext importedContext : imports) {
-            Type imported = importedContext.resolveImport(fullyQualifiedName);
-            if (imported != null) {
-                return imported;
+            for (ProtoContext importedContext : imports) {
+                putAllAbsent(symbols, importedContext.getExportedSymbols());
             }
+            result = Collections.unmodifiableMap(symbols);
+            importedSymbols = result;
         }
-        return null;
+        return result;
     }
 
-    public Type resolveImport(String typeName) {
-        Type local = symbolTable.get(typeName);
-        if (local != null) {
-            return local;
-        }
-        for (ProtoContext importedContext : publicImports) {
-            Type imported = importedContext.resolveImport(typeName);
-            if (imported != null) {
-                return imported;
+    /**
+     * All types that are visible in a context that imports this context: own types
+     * and types exported by public imports.
+     * Result is cached only when context is initialized, as symbol table can be
+     * changed before that.
+     */
+    private Map<String, Type> getExportedSymbols() {
+        Map<String, Type> result = exportedSymbols;
+        if (result == null) {
+            Map<String, Type> symbols = new HashMap<>(symbolTable);
+            for (ProtoContext importedContext : publicImports) {
+                putAllAbsent(symbols, importedContext.getExportedSymbols());
+            }
+            result = Collections.unmodifiableMap(symbols);
+            if (initialized) {
+                exportedSymbols = result;
             }
         }
-        return null;
+        return result;
+    }
+
+    private static void putAllAbsent(Map<String, Type> target, Map<String, Type> source) {
+        for (Map.Entry<String, Type> entry : source.entrySet()) {
+            target.putIfAbsent(entry.getKey(), entry.getValue());
+        }
     }
 
     public boolean isInitialized() {
@@ -172,6 +204,7 @@ public class ProtoContext {
 
     public void addImport(ProtoContext importedProto) {
         imports.add(importedProto);
+        importedSymbols = null;
     }
 
     public List<ProtoContext> getPublicImports() {
@@ -180,6 +213,8 @@ public class ProtoContext {
 
     public void addPublicImport(ProtoContext importedProto) {
         publicImports.add(importedProto);
+        importedSymbols = null;
+        exportedSymbols = null;
     }
 
     public ExtensionRegistry getExtensionRegistry() {
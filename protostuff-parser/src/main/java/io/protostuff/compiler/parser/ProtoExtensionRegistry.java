@@ -1,29 +1,35 @@
 package io.protostuff.compiler.parser;
 
-import java.util.ArrayDeque;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.List;
 
 import io.protostuff.compiler.model.Extension;
-import io.protostuff.compiler.model.Import;
-import io.protostuff.compiler.model.Proto;
 
 /**
+ * Extension registry of a proto file.
+ *
+ * All extensions that are visible in a proto file - declared in the file itself
+ * or in any file it imports, directly or transitively - are collected into an
+ * index once, on first lookup. Index of an imported file is reused, so every
+ * file in the import graph is processed only once and each extension is
+ * listed only once, even if it is reachable through multiple import paths.
+ *
  * @author Kostiantyn Shchepanovskyi
  */
 public final class ProtoExtensionRegistry extends AbstractExtensionRegistry {
 
-    private final ExtensionRegistry localExtensionRegistry;
+    private final LocalExtensionRegistry localExtensionRegistry;
     private final ProtoContext context;
-    private final ConcurrentMap<String, Collection<Extension>> extensionCache = new ConcurrentHashMap<>();
-    private Proto proto;
+
+    private volatile SetMultimap<String, Extension> visibleExtensions;
 
     public ProtoExtensionRegistry(ProtoContext context) {
         this.context = context;
-        this.proto = context.getProto();
         this.localExtensionRegistry = new LocalExtensionRegistry();
     }
 
@@ -31,32 +37,32 @@ public final class ProtoExtensionRegistry extends AbstractExtensionRegistry {
     public void registerExtension(Extension extension) {
         super.registerExtension(extension);
         localExtensionRegistry.registerExtension(extension);
-        String fullyQualifiedName = extension.getExtendee().getFullyQualifiedName();
-        extensionCache.remove(fullyQualifiedName);
+        visibleExtensions = null;
     }
 
     @Override
     public Collection<Extension> getExtensions(String fullMessageName) {
-        return extensionCache.computeIfAbsent(fullMessageName, name -> {
-            Collection<Extension> result = new ArrayList<>();
-            result.addAll(localExtensionRegistry.getExtensions(name));
-            Deque<Import> queue = new ArrayDeque<>();
-            queue.addAll(proto.getImports());
-            while (!queue.isEmpty()) {
-                Import anImport = queue.poll();
-                Proto proto = anImport.getProto();
-                Collection<Extension> extensions = getExtensions(proto, name);
-                result.addAll(extensions);
-                queue.addAll(proto.getPublicImports());
-            }
-            return result;
-        });
+        return getVisibleExtensions().get(fullMessageName);
     }
 
-    private Collection<Extension> getExtensions(Proto proto, String name) {
-        ProtoContext context = proto.getContext();
-        ExtensionRegistry extensionRegistry = context.getExtensionRegistry();
-        return extensionRegistry.getExtensions(name);
+    private SetMultimap<String, Extension> getVisibleExtensions() {
+        SetMultimap<String, Extension> result = visibleExtensions;
+        if (result == null) {
+            SetMultimap<String, Extension> extensions = LinkedHashMultimap.create();
+            for (Extension extension : localExtensionRegistry.getAllExtensions()) {
+                extensions.put(extension.getExtendee().getFullyQualifiedName(), extension);
+            }
+            List<ProtoContext> importedContexts = new ArrayList<>();
+            importedContexts.addAll(context.getImports());
+            importedContexts.addAll(context.getPublicImports());
+            for (ProtoContext importedContext : importedContexts) {
+                ProtoExtensionRegistry registry = (ProtoExtensionRegistry) importedContext.getExtensionRegistry();
+                extensions.putAll(registry.getVisibleExtensions());
+            }
+            result = ImmutableSetMultimap.copyOf(extensions);
+            visibleExtensions = result;
+        }
+        return result;
     }
 
 }
@@ -1,29 +1,85 @@
 package io.protostuff.compiler.parser;
 
 import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
 
 import org.antlr.v4.runtime.CharStream;
 
+import java.io.Closeable;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.Nullable;
-import javax.inject.Inject;
 
 /**
+ * Default file reader: loads files from include paths, then from classpath.
+ * Optional source reader is checked before include paths.
+ *
+ * Include paths can be directories or jar/zip archives; they are searched
+ * in the order they appear in the list. Reader should be closed when it is
+ * not used anymore, so that opened archives can be released.
+ *
  * @author Kostiantyn Shchepanovskyi
  */
-public class ProtoFileReader implements FileReader {
+public class ProtoFileReader implements FileReader, Closeable {
 
     private final List<Path> includePathList;
+    private final List<ArchiveFileReader> archiveReaders = new ArrayList<>();
     private final FileReader delegate;
 
-    @Inject
+    @AssistedInject
     public ProtoFileReader(@Assisted List<Path> includePathList) {
+        this(includePathList, false);
+    }
+
+    /**
+     * @param indexed if true, local files are looked up using an index of
+     *                proto files under include paths, see {@link LocalFileReader}
+     */
+    @AssistedInject
+    public ProtoFileReader(@Assisted List<Path> includePathList, @Assisted boolean indexed) {
+        this.includePathList = includePathList;
+        this.delegate = createDelegate(null, includePathList, indexed);
+    }
+
+    /**
+     * @param sourceReader reader that is used before include paths, e.g.
+     *                     {@link InMemoryFileReader}
+     */
+    @AssistedInject
+    public ProtoFileReader(@Assisted FileReader sourceReader, @Assisted List<Path> includePathList,
+                           @Assisted boolean indexed) {
         this.includePathList = includePathList;
-        ClasspathFileReader classpathFileReader = new ClasspathFileReader();
-        LocalFileReader localFileReader = new LocalFileReader(includePathList);
-        delegate = new CompositeFileReader(localFileReader, classpathFileReader);
+        this.delegate = createDelegate(sourceReader, includePathList, indexed);
+    }
+
+    private FileReader createDelegate(@Nullable FileReader sourceReader,
+                                      List<Path> includePathList, boolean indexed) {
+        List<FileReader> readers = new ArrayList<>();
+        if (sourceReader != null) {
+            readers.add(sourceReader);
+        }
+        // consecutive directories share one local reader (and its index)
+        List<Path> directories = new ArrayList<>();
+        for (Path path : includePathList) {
+            if (ArchiveFileReader.isArchive(path)) {
+                if (!directories.isEmpty()) {
+                    readers.add(new LocalFileReader(directories, indexed));
+                    directories = new ArrayList<>();
+                }
+                ArchiveFileReader archiveReader = new ArchiveFileReader(path);
+                archiveReaders.add(archiveReader);
+                readers.add(archiveReader);
+            } else {
+                directories.add(path);
+            }
+        }
+        if (!directories.isEmpty()) {
+            readers.add(new LocalFileReader(directories, indexed));
+        }
+        readers.add(new ClasspathFileReader());
+        return new CompositeFileReader(readers);
     }
 
     @Nullable
@@ -31,4 +87,9 @@ public class ProtoFileReader implements FileReader {
     public CharStream read(String name) {
         return delegate.read(name);
     }
+
+    @Override
+    public void close() {
+        archiveReaders.forEach(ArchiveFileReader::close);
+    }
 }
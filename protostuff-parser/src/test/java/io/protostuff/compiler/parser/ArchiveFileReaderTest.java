@@ -0,0 +1,134 @@
+package io.protostuff.compiler.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class ArchiveFileReaderTest {
+
+    private Path tempDirectory;
+    private Path archive1;
+    private Path archive2;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("protostuff-test-");
+        archive1 = writeArchive(tempDirectory.resolve("1.jar"), "dir/1.proto", "1");
+        archive2 = writeArchive(tempDirectory.resolve("2.zip"), "dir/2.proto", "2");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.delete(archive1);
+        Files.delete(archive2);
+        Files.delete(tempDirectory);
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        assertTrue(ArchiveFileReader.isArchive(archive1));
+        assertFalse(ArchiveFileReader.isArchive(tempDirectory));
+        ArchiveFileReader reader = new ArchiveFileReader(archive1, archive2);
+        assertEquals("1", getText(reader.read("dir/1.proto")));
+        assertEquals("2", getText(reader.read("dir/2.proto")));
+        assertNull(reader.read("dir/3.proto"));
+    }
+
+    @Test
+    public void testArchiveChanged() throws Exception {
+        assertEquals("1", getText(new ArchiveFileReader(archive1).read("dir/1.proto")));
+        writeArchive(archive1, "dir/1.proto", "changed");
+        Files.setLastModifiedTime(archive1, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        assertEquals("changed", getText(new ArchiveFileReader(archive1).read("dir/1.proto")));
+    }
+
+    /**
+     * Readers that were created before archive was changed keep reading
+     * from the copy they opened, until they are closed.
+     */
+    @Test
+    public void testArchiveReplacedWhileUsed() throws Exception {
+        ArchiveFileReader first = new ArchiveFileReader(archive1);
+        assertEquals("1", getText(first.read("dir/1.proto")));
+        Path replacement = writeArchive(tempDirectory.resolve("replacement.jar"), "dir/1.proto", "changed");
+        Files.setLastModifiedTime(replacement, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        Files.move(replacement, archive1, StandardCopyOption.REPLACE_EXISTING);
+        ArchiveFileReader second = new ArchiveFileReader(archive1);
+        assertEquals("changed", getText(second.read("dir/1.proto")));
+        assertEquals("1", getText(first.read("dir/1.proto")));
+        first.close();
+        assertNull(first.read("dir/1.proto"));
+        assertEquals("changed", getText(second.read("dir/1.proto")));
+        second.close();
+    }
+
+    /**
+     * Archive that is not used by any reader stays open for next readers,
+     * it is not opened and scanned again while the file is not changed.
+     */
+    @Test
+    public void testArchiveReusedAfterClose() throws Exception {
+        ArchiveFileReader first = new ArchiveFileReader(archive1);
+        assertEquals("1", getText(first.read("dir/1.proto")));
+        first.close();
+        // replacement with the same size and modification time is not detected
+        FileTime lastModifiedTime = Files.getLastModifiedTime(archive1);
+        Path replacement = writeArchive(tempDirectory.resolve("replacement.jar"), "dir/1.proto", "2");
+        Files.setLastModifiedTime(replacement, lastModifiedTime);
+        assertEquals(Files.size(archive1), Files.size(replacement));
+        Files.move(replacement, archive1, StandardCopyOption.REPLACE_EXISTING);
+        ArchiveFileReader second = new ArchiveFileReader(archive1);
+        assertEquals("1", getText(second.read("dir/1.proto")));
+        second.close();
+    }
+
+    @Test
+    public void testIncludePathOrder() throws Exception {
+        Path directory = Files.createDirectories(tempDirectory.resolve("include/dir"));
+        Files.write(directory.resolve("1.proto"), "directory".getBytes());
+        Path include = directory.getParent();
+        try {
+            try (ProtoFileReader reader = new ProtoFileReader(Arrays.asList(archive1, include), false)) {
+                assertEquals("1", getText(reader.read("dir/1.proto")));
+            }
+            try (ProtoFileReader reader = new ProtoFileReader(Arrays.asList(include, archive1), false)) {
+                assertEquals("directory", getText(reader.read("dir/1.proto")));
+            }
+        } finally {
+            Files.delete(directory.resolve("1.proto"));
+            Files.delete(directory);
+            Files.delete(include);
+        }
+    }
+
+    private Path writeArchive(Path path, String entryName, String content) throws Exception {
+        try (OutputStream out = Files.newOutputStream(path);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(entryName));
+            zip.write(content.getBytes());
+            zip.closeEntry();
+        }
+        return path;
+    }
+
+    private String getText(CharStream stream) {
+        assertNotNull(stream);
+        return stream.getText(Interval.of(0, stream.size() - 1));
+    }
+}
@@ -1,8 +1,22 @@
 package io.protostuff.compiler.parser;
 
 import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -19,4 +33,125 @@ public class ClasspathFileReaderTest {
         assertNotNull(a);
         assertNull(b);
     }
+
+    @Test
+    public void testReadIndexed() throws Exception {
+        Path directory = Files.createTempDirectory("protostuff-test-");
+        Path file1 = Files.write(directory.resolve("1.proto"), "1".getBytes());
+        Path jar2 = writeJar(directory.resolve("2.jar"), "dir/2.proto", "2", null);
+        Path jar3 = writeJar(directory.resolve("3.jar"), "dir/3.proto", "3", "2.jar");
+        Path file4 = directory.resolve("4.proto");
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{
+                directory.toUri().toURL(), jar3.toUri().toURL()}, null)) {
+            thread.setContextClassLoader(classLoader);
+            ClasspathFileReader reader = new ClasspathFileReader();
+            assertEquals("1", getText(reader.read("1.proto")));
+            assertEquals("2", getText(reader.read("dir/2.proto")));
+            assertEquals("3", getText(reader.read("dir/3.proto")));
+            assertNull(reader.read("4.proto"));
+            // missing files are cached
+            Files.write(file4, "4".getBytes());
+            assertNull(reader.read("4.proto"));
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+            Files.deleteIfExists(file4);
+            Files.delete(jar3);
+            Files.delete(jar2);
+            Files.delete(file1);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Index is rebuilt when urls are added to class loader after first read.
+     */
+    @Test
+    public void testReadAddedUrl() throws Exception {
+        Path directory = Files.createTempDirectory("protostuff-test-");
+        Path jar = writeJar(directory.resolve("1.jar"), "dir/1.proto", "1", null);
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try (ExtensibleClassLoader classLoader = new ExtensibleClassLoader()) {
+            thread.setContextClassLoader(classLoader);
+            assertNull(new ClasspathFileReader().read("dir/1.proto"));
+            classLoader.addURL(jar.toUri().toURL());
+            assertEquals("1", getText(new ClasspathFileReader().read("dir/1.proto")));
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+            Files.delete(jar);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Application class loader is indexed using {@code java.class.path}.
+     */
+    @Test
+    public void testReadSystemClassLoader() throws Exception {
+        ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+        assertNotNull(read(classLoader, "protostuff_unittest/messages_sample.proto"));
+        assertNull(read(classLoader, "this_file_does_not_exist.proto"));
+    }
+
+    /**
+     * Files are looked up through class loaders that can not be indexed.
+     */
+    @Test
+    public void testReadCustomClassLoader() throws Exception {
+        ClassLoader classLoader = new ClassLoader(ClassLoader.getSystemClassLoader()) {
+            @Override
+            public InputStream getResourceAsStream(String name) {
+                if ("custom/1.proto".equals(name)) {
+                    return new ByteArrayInputStream("custom".getBytes());
+                }
+                return super.getResourceAsStream(name);
+            }
+        };
+        assertEquals("custom", getText(read(classLoader, "custom/1.proto")));
+    }
+
+    private CharStream read(ClassLoader classLoader, String name) throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try {
+            thread.setContextClassLoader(classLoader);
+            return new ClasspathFileReader().read(name);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private Path writeJar(Path path, String entryName, String content, String classPath) throws Exception {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (classPath != null) {
+            manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath);
+        }
+        try (OutputStream out = Files.newOutputStream(path);
+             JarOutputStream jar = new JarOutputStream(out, manifest)) {
+            jar.putNextEntry(new JarEntry(entryName));
+            jar.write(content.getBytes());
+            jar.closeEntry();
+        }
+        return path;
+    }
+
+    private static class ExtensibleClassLoader extends URLClassLoader {
+
+        ExtensibleClassLoader() {
+            super(new URL[0], null);
+        }
+
+        @Override
+        public void addURL(URL url) {
+            super.addURL(url);
+        }
+    }
+
+    private String getText(CharStream stream) {
+        assertNotNull(stream);
+        return stream.getText(Interval.of(0, stream.size() - 1));
+    }
 }
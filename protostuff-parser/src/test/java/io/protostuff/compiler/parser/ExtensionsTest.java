@@ -64,6 +64,20 @@ public class ExtensionsTest {
         assertEquals(1000, bRange.getTo());
     }
 
+    @Test
+    public void diamondImports() throws Exception {
+        ProtoContext context = importer.importFile(new ClasspathFileReader(), "protostuff_unittest/extensions_diamond.proto");
+        ExtensionRegistry er = context.getExtensionRegistry();
+        // base extension is reachable through both left and right imports
+        assertEquals(4, er.getExtensions(".protostuff_unittest.Extendable").size());
+        Map<String, Field> fields = er.getExtensionFields(".protostuff_unittest.Extendable");
+        assertEquals(4, fields.size());
+        assertEquals(10, fields.get(".protostuff_unittest.base").getTag());
+        assertEquals(11, fields.get(".protostuff_unittest.left").getTag());
+        assertEquals(12, fields.get(".protostuff_unittest.right").getTag());
+        assertEquals(13, fields.get(".protostuff_unittest.bottom").getTag());
+    }
+
     @Test
     public void tagOutOfRange() throws Exception {
         ParserException exception = expectThrows(ParserException.class, () -> {
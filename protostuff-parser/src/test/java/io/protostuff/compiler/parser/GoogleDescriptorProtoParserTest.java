@@ -2,12 +2,15 @@ package io.protostuff.compiler.parser;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
 import io.protostuff.compiler.ParserModule;
 import io.protostuff.compiler.model.Message;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * @author Kostiantyn Shchepanovskyi
@@ -27,4 +30,13 @@ public class GoogleDescriptorProtoParserTest {
         Message a = context.getProto().getMessage("FileOptions");
         assertNotNull(a);
     }
+
+    @Test
+    public void descriptorProtoIsShared() throws Exception {
+        Key<ProtoContext> key = Key.get(ProtoContext.class, Names.named(DefaultDescriptorProtoProvider.DESCRIPTOR_PROTO));
+        ProtoContext context = injector.getInstance(key);
+        ProtoContext anotherContext = Guice.createInjector(new ParserModule()).getInstance(key);
+        assertNotNull(context.getProto().getMessage("FileOptions"));
+        assertSame(context, anotherContext);
+    }
 }
@@ -0,0 +1,37 @@
+package io.protostuff.compiler.parser;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class ImportScannerTest {
+
+    @Test
+    public void scan() throws Exception {
+        String source = "// import \"comment.proto\";\n"
+                + "syntax = \"proto3\";\n"
+                + "/* import \"block_comment.proto\"; */\n"
+                + "package foo;\n"
+                + "import \"a.proto\";\n"
+                + "import public 'dir/b.proto';\n"
+                + "import weak \"c.proto\";\n"
+                + "option java_package = \"import.proto\";\n"
+                + "message A { string import = 1; }\n"
+                + "import \"d.proto\";\n";
+        assertEquals(Arrays.asList("a.proto", "dir/b.proto", "c.proto"),
+                ImportScanner.scan(new ANTLRInputStream(source)));
+    }
+
+    @Test
+    public void scanUnterminated() throws Exception {
+        assertEquals(Collections.emptyList(), ImportScanner.scan(new ANTLRInputStream("import \"a.proto")));
+        assertEquals(Collections.emptyList(), ImportScanner.scan(new ANTLRInputStream("/* import \"a.proto\";")));
+    }
+}
@@ -7,6 +7,14 @@ import io.protostuff.compiler.model.Import;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -36,6 +44,32 @@ public class ImportsTest {
         assertNull(context.resolve(".protostuff_unittest.D"));
     }
 
+    @Test
+    public void exportedTypes() throws Exception {
+        ProtoContext context = importer.importFile(new ClasspathFileReader(), "protostuff_unittest/imports_b.proto");
+        // own types and types from public imports are visible to importers
+        assertNotNull(context.resolveImport(".protostuff_unittest.B"));
+        assertNotNull(context.resolveImport(".protostuff_unittest.C"));
+        // types from regular imports of public imports are not
+        assertNull(context.resolveImport(".protostuff_unittest.D"));
+        assertNotNull(context.resolve(".protostuff_unittest.D"));
+    }
+
+    @Test
+    public void invalidate() throws Exception {
+        ClasspathFileReader reader = new ClasspathFileReader();
+        ProtoContext a = importer.importFile(reader, "protostuff_unittest/imports_a.proto");
+        ProtoContext d = importer.importFile(reader, "protostuff_unittest/imports_d.proto");
+        Set<String> invalidated = importer.invalidate(Collections.singletonList("protostuff_unittest/imports_c.proto"));
+        Set<String> expected = new HashSet<>(Arrays.asList(
+                "protostuff_unittest/imports_a.proto",
+                "protostuff_unittest/imports_b.proto",
+                "protostuff_unittest/imports_c.proto"));
+        assertEquals(expected, invalidated);
+        assertNotSame(a, importer.importFile(reader, "protostuff_unittest/imports_a.proto"));
+        assertSame(d, importer.importFile(reader, "protostuff_unittest/imports_d.proto"));
+    }
+
     @Test
     public void duplicate() throws Exception {
         Throwable exception = expectThrows(ParserException.class, () -> {
@@ -44,4 +78,35 @@ public class ImportsTest {
         assertEquals("Cannot register duplicate type: .protostuff_unittest.A " +
                 "[protostuff_unittest/imports_duplicate.proto:7]", exception.getMessage());
     }
+
+    @Test
+    public void cycle() throws Exception {
+        Throwable exception = expectThrows(ParserException.class, () -> {
+            importer.importFile(new ClasspathFileReader(), "protostuff_unittest/imports_cycle_a.proto");
+        });
+        assertEquals("Can not load proto: imports cycle found", exception.getMessage());
+    }
+
+    @Test
+    public void parallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<String> files = Arrays.asList(
+                    "protostuff_unittest/imports_a.proto",
+                    "protostuff_unittest/imports_b.proto",
+                    "protostuff_unittest/imports_c.proto",
+                    "protostuff_unittest/imports_d.proto");
+            List<ProtoContext> contexts = importer.importFiles(new ClasspathFileReader(), files, executor);
+            assertEquals(4, contexts.size());
+            for (int i = 0; i < files.size(); i++) {
+                assertEquals(files.get(i), contexts.get(i).getProto().getFilename());
+            }
+            // shared imports are loaded only once
+            ProtoContext b = contexts.get(1);
+            assertSame(b.getProto(), contexts.get(0).getProto().getImports().get(0).getProto());
+            assertSame(contexts.get(2), b.getPublicImports().get(0));
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
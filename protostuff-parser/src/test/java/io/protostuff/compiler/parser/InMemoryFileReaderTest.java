@@ -0,0 +1,51 @@
+package io.protostuff.compiler.parser;
+
+import io.protostuff.compiler.model.Message;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class InMemoryFileReaderTest extends AbstractParserTest {
+
+    @Test
+    public void testRead() throws Exception {
+        Map<String, String> files = new HashMap<>();
+        files.put("1.proto", "1");
+        InMemoryFileReader reader = new InMemoryFileReader(files);
+        ByteBuffer bytes = ByteBuffer.wrap("// Привіт".getBytes(StandardCharsets.UTF_8));
+        reader.put("2.proto", bytes);
+        assertEquals(0, bytes.position());
+        assertEquals("1", getText(reader.read("1.proto")));
+        assertEquals("// Привіт", getText(reader.read("2.proto")));
+        assertNull(reader.read("3.proto"));
+        reader.remove("1.proto");
+        assertNull(reader.read("1.proto"));
+    }
+
+    @Test
+    public void testImport() throws Exception {
+        InMemoryFileReader reader = new InMemoryFileReader();
+        reader.put("a.proto", "syntax = \"proto3\"; package a; import \"b.proto\"; message A { b.B b = 1; }");
+        reader.put("b.proto", "syntax = \"proto3\"; package b; message B {}");
+        ProtoContext context = importer.importFile(reader, "a.proto");
+        Message message = context.resolve(".a.A", Message.class);
+        assertEquals(".b.B", message.getField("b").getType().getFullyQualifiedName());
+    }
+
+    private String getText(CharStream stream) {
+        assertNotNull(stream);
+        return stream.getText(Interval.of(0, stream.size() - 1));
+    }
+}
@@ -6,8 +6,14 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,4 +56,76 @@ public class LocalFileReaderTest {
         assertEquals("2", b.getText(Interval.of(0, 1)));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testReadContent() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 2 * 1024 * 1024) {
+            sb.append("// Привіт, 世界 \uD83D\uDE00\n");
+        }
+        String small = "// Привіт, 世界 \uD83D\uDE00";
+        String large = sb.toString();
+        Path smallFile = Files.write(tempDirectory2.resolve("small.proto"), small.getBytes(StandardCharsets.UTF_8));
+        Path largeFile = Files.write(tempDirectory2.resolve("large.proto"), large.getBytes(StandardCharsets.UTF_8));
+        try {
+            LocalFileReader reader = new LocalFileReader(tempDirectory2);
+            CharStream a = reader.read("small.proto");
+            CharStream b = reader.read("large.proto");
+            assertEquals(small.length(), a.size());
+            assertEquals(small, a.getText(Interval.of(0, a.size() - 1)));
+            assertEquals(large.length(), b.size());
+            assertEquals(large, b.getText(Interval.of(0, b.size() - 1)));
+        } finally {
+            Files.delete(smallFile);
+            Files.delete(largeFile);
+        }
+    }
+
+    /**
+     * Large files on filesystems that do not support memory mapping.
+     */
+    @Test
+    public void testReadZipFileSystem() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 2 * 1024 * 1024) {
+            sb.append("// large file\n");
+        }
+        String large = sb.toString();
+        Path archive = tempDirectory2.resolve("test.zip");
+        URI uri = URI.create("jar:" + archive.toUri());
+        try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Collections.singletonMap("create", "true"))) {
+            Path root = fileSystem.getPath("/");
+            Files.write(root.resolve("large.proto"), large.getBytes(StandardCharsets.UTF_8));
+            CharStream stream = new LocalFileReader(root).read("large.proto");
+            assertNotNull(stream);
+            assertEquals(large, stream.getText(Interval.of(0, stream.size() - 1)));
+        } finally {
+            Files.delete(archive);
+        }
+    }
+
+    @Test
+    public void testReadIndexed() throws Exception {
+        Path directory = Files.createDirectory(tempDirectory2.resolve("dir"));
+        Path file3 = Files.write(directory.resolve("3.proto"), "3".getBytes());
+        Path file4 = directory.resolve("4.proto");
+        try {
+            LocalFileReader reader = new LocalFileReader(Arrays.asList(tempDirectory1, tempDirectory2), true);
+            CharStream a = reader.read("1.proto");
+            CharStream b = reader.read("dir/3.proto");
+            assertEquals("1", a.getText(Interval.of(0, 1)));
+            assertEquals("3", b.getText(Interval.of(0, 1)));
+            assertNull(reader.read("3.proto"));
+            // new files are not visible until index is invalidated
+            Files.write(file4, "4".getBytes());
+            assertNull(reader.read("dir/4.proto"));
+            reader.invalidate();
+            CharStream c = reader.read("dir/4.proto");
+            assertEquals("4", c.getText(Interval.of(0, 1)));
+        } finally {
+            Files.deleteIfExists(file4);
+            Files.delete(file3);
+            Files.delete(directory);
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package io.protostuff.compiler.parser;
+
+import com.google.common.reflect.AbstractInvocationHandler;
+import com.google.common.reflect.Reflection;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import io.protostuff.compiler.ParserModule;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Parser micro-benchmarks on a large generated proto file.
+ * Disabled by default, run manually.
+ *
+ * @author Kostiantyn Shchepanovskyi
+ */
+@Disabled("benchmark")
+public class ParserBenchmarkTest {
+
+    private static final int MESSAGES = 2000;
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int ITERATIONS = 20;
+
+    static String generateProto(int messages) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("syntax = \"proto3\";\n");
+        sb.append("package benchmark;\n");
+        sb.append("option java_package = \"io.protostuff.benchmark\";\n");
+        for (int i = 0; i < messages; i++) {
+            sb.append("// Message number ").append(i).append('\n');
+            sb.append("message Message").append(i).append(" {\n");
+            sb.append("    int32 id = 1;\n");
+            sb.append("    string name = 2 [deprecated = true];\n");
+            sb.append("    repeated int64 values = 3;\n");
+            sb.append("    map<string, int32> counters = 4;\n");
+            sb.append("    State state = 5;\n");
+            if (i > 0) {
+                sb.append("    Message").append(i - 1).append(" previous = 6;\n");
+            }
+            sb.append("    oneof value {\n");
+            sb.append("        string text = 10;\n");
+            sb.append("        bytes data = 11;\n");
+            sb.append("    }\n");
+            sb.append("    enum State {\n");
+            sb.append("        UNKNOWN = 0;\n");
+            sb.append("        ACTIVE = 1;\n");
+            sb.append("    }\n");
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void walk() throws Exception {
+        String text = generateProto(MESSAGES);
+        ProtoLexer lexer = new ProtoLexer(new ANTLRInputStream(text));
+        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+        ProtoParser parser = new ProtoParser(tokenStream);
+        ProtoParser.ProtoContext tree = parser.proto();
+
+        run("walk (reflective proxy)", () -> walk(tokenStream, tree, ParserBenchmarkTest::reflectiveComposite));
+        run("walk (static dispatch)", () -> walk(tokenStream, tree, CompositeParseTreeListener::create));
+    }
+
+    @Test
+    public void parse() throws Exception {
+        List<String> testProtos = new ArrayList<>();
+        ClasspathFileReader reader = new ClasspathFileReader();
+        for (String file : ImmutableList.of(
+                "protobuf_unittest/unittest.proto",
+                "protobuf_unittest/unittest_custom_options.proto",
+                "protobuf_unittest/map_unittest.proto",
+                "google/protobuf/descriptor.proto")) {
+            CharStream stream = reader.read(file);
+            testProtos.add(stream.getText(Interval.of(0, stream.size() - 1)));
+        }
+        String large = generateProto(MESSAGES);
+
+        run("parse test protos (LL)", () -> testProtos.forEach(text -> parse(text, false)));
+        run("parse test protos (SLL, then LL)", () -> testProtos.forEach(text -> parse(text, true)));
+        run("parse large file (LL)", () -> parse(large, false));
+        run("parse large file (SLL, then LL)", () -> parse(large, true));
+    }
+
+    @Test
+    public void load() throws Exception {
+        Importer importer = Guice.createInjector(new ParserModule()).getInstance(Importer.class);
+        // warm up descriptor.proto
+        importer.importFile(new ClasspathFileReader(), "google/protobuf/descriptor.proto");
+        String large = generateProto(MESSAGES);
+        FileReader reader = name -> new ANTLRInputStream(large);
+        FileDescriptorLoader loader = Guice.createInjector(new ParserModule()).getInstance(FileDescriptorLoader.class);
+        run("load large file", () -> loader.load(reader, "benchmark.proto"));
+    }
+
+    @Test
+    public void read() throws Exception {
+        Path directory = Files.createTempDirectory("protostuff-benchmark-");
+        Path file = Files.write(directory.resolve("benchmark.proto"),
+                generateProto(MESSAGES * 10).getBytes(StandardCharsets.UTF_8));
+        try {
+            run("read large file (bytes, string, chars)", () -> {
+                try {
+                    byte[] bytes = Files.readAllBytes(file);
+                    new ANTLRInputStream(new String(bytes, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            LocalFileReader reader = new LocalFileReader(directory);
+            run("read large file (LocalFileReader)", () -> reader.read("benchmark.proto"));
+        } finally {
+            Files.delete(file);
+            Files.delete(directory);
+        }
+    }
+
+    private ProtoParser.ProtoContext parse(String text, boolean twoStage) {
+        ProtoLexer lexer = new ProtoLexer(new ANTLRInputStream(text));
+        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+        ProtoParser parser = new ProtoParser(tokenStream);
+        parser.removeErrorListeners();
+        if (!twoStage) {
+            return parser.proto();
+        }
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return parser.proto();
+        } catch (ParseCancellationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void walk(CommonTokenStream tokenStream, ProtoParser.ProtoContext tree,
+                      Function<ParseTreeListener[], ParseTreeListener> compositeFactory) {
+        ProtoContext context = new ProtoContext("benchmark.proto");
+        ParseTreeListener composite = compositeFactory.apply(new ParseTreeListener[]{
+                new ProtoParseListener(tokenStream, context),
+                new MessageParseListener(tokenStream, context),
+                new EnumParseListener(tokenStream, context),
+                new OptionParseListener(tokenStream, context),
+                new ServiceParseListener(tokenStream, context)
+        });
+        ParseTreeWalker.DEFAULT.walk(composite, tree);
+    }
+
+    private static ParseTreeListener reflectiveComposite(ParseTreeListener[] delegates) {
+        return Reflection.newProxy(ProtoParserListener.class, new AbstractInvocationHandler() {
+            @Override
+            protected Object handleInvocation(Object proxy, Method method, Object[] args) throws Throwable {
+                for (ParseTreeListener listener : delegates) {
+                    method.invoke(listener, args);
+                }
+                return null;
+            }
+        });
+    }
+
+    static void run(String name, Runnable task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-40s %8.2f ms/op%n", name, elapsed / 1e6 / ITERATIONS);
+    }
+}
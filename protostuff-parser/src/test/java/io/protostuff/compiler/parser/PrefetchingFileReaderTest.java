@@ -0,0 +1,105 @@
+package io.protostuff.compiler.parser;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Kostiantyn Shchepanovskyi
+ */
+public class PrefetchingFileReaderTest {
+
+    @Test
+    public void prefetchImports() throws Exception {
+        Map<String, String> files = new HashMap<>();
+        files.put("a.proto", "import \"b.proto\"; import \"c.proto\";");
+        files.put("b.proto", "import \"c.proto\";");
+        files.put("c.proto", "message C {}");
+        List<String> reads = Collections.synchronizedList(new ArrayList<>());
+        FileReader delegate = name -> {
+            reads.add(name);
+            String content = files.get(name);
+            return content == null ? null : new ANTLRInputStream(content);
+        };
+        List<Runnable> tasks = new ArrayList<>();
+        PrefetchingFileReader reader = new PrefetchingFileReader(delegate, tasks::add);
+
+        assertEquals(files.get("a.proto"), getText(reader.read("a.proto")));
+        assertEquals(2, tasks.size());
+        tasks.forEach(Runnable::run);
+        assertEquals(Arrays.asList("a.proto", "b.proto", "c.proto"), reads);
+
+        // prefetched streams are returned without reading
+        assertEquals(files.get("b.proto"), getText(reader.read("b.proto")));
+        assertEquals(files.get("c.proto"), getText(reader.read("c.proto")));
+        assertEquals(3, reads.size());
+        assertEquals(2, tasks.size());
+
+        // following requests are passed to delegate
+        assertEquals(files.get("c.proto"), getText(reader.read("c.proto")));
+        assertNull(reader.read("d.proto"));
+        assertEquals(Arrays.asList("a.proto", "b.proto", "c.proto", "c.proto", "d.proto"), reads);
+    }
+
+    @Test
+    public void readBeforePrefetch() throws Exception {
+        FileReader delegate = name -> new ANTLRInputStream("import \"b.proto\";");
+        List<Runnable> tasks = new ArrayList<>();
+        PrefetchingFileReader reader = new PrefetchingFileReader(delegate, tasks::add);
+        reader.read("a.proto");
+        assertEquals(1, tasks.size());
+        // scheduled task is not started yet, file is read by caller
+        assertNotNull(reader.read("b.proto"));
+        tasks.forEach(Runnable::run);
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void skipImportedFiles() throws Exception {
+        List<String> reads = Collections.synchronizedList(new ArrayList<>());
+        FileReader delegate = name -> {
+            reads.add(name);
+            return new ANTLRInputStream("import \"b.proto\"; import \"c.proto\";");
+        };
+        List<Runnable> tasks = new ArrayList<>();
+        PrefetchingFileReader reader = new PrefetchingFileReader(delegate, tasks::add, "b.proto"::equals);
+        reader.read("a.proto");
+        tasks.forEach(Runnable::run);
+        assertEquals(Arrays.asList("a.proto", "c.proto"), reads);
+    }
+
+    @Test
+    public void closeDropsUnclaimedStreams() throws Exception {
+        List<String> reads = Collections.synchronizedList(new ArrayList<>());
+        FileReader delegate = name -> {
+            reads.add(name);
+            return new ANTLRInputStream("import \"b.proto\";");
+        };
+        List<Runnable> tasks = new ArrayList<>();
+        PrefetchingFileReader reader = new PrefetchingFileReader(delegate, tasks::add);
+        reader.read("a.proto");
+        tasks.forEach(Runnable::run);
+        assertEquals(Arrays.asList("a.proto", "b.proto"), reads);
+        reader.close();
+        // prefetched stream is dropped, file is read again
+        assertNotNull(reader.read("b.proto"));
+        assertEquals(Arrays.asList("a.proto", "b.proto", "b.proto"), reads);
+    }
+
+    private String getText(CharStream stream) {
+        assertNotNull(stream);
+        return stream.getText(Interval.of(0, stream.size() - 1));
+    }
+}
@@ -1,10 +1,15 @@
 package io.protostuff.compiler.parser;
 
+import com.google.inject.Guice;
+import io.protostuff.compiler.ParserModule;
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
 /**
  * @author Kostiantyn Shchepanovskyi
  */
@@ -23,6 +28,16 @@ public class SyntaxTest {
         parseSyntaxLine(PROTO2);
     }
 
+    @Test
+    public void syntaxErrors() throws Exception {
+        Importer importer = Guice.createInjector(new ParserModule()).getInstance(Importer.class);
+        ParserException exception = expectThrows(ParserException.class, () -> {
+            importer.importFile(new ClasspathFileReader(), "protostuff_unittest/syntax_error.proto");
+        });
+        assertEquals("Could not parse protostuff_unittest/syntax_error.proto: 2 syntax errors found",
+                exception.getMessage());
+    }
+
     private void parseSyntaxLine(String input) {
         CharStream stream = new ANTLRInputStream(input);
         ProtoLexer lexer = new ProtoLexer(stream);